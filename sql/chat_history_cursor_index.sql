@@ -0,0 +1,5 @@
+-- 对话历史游标分页索引
+-- 支撑 /chatHistory/app/{appId}/cursor 的 (appId, createTime, id) 键集分页，按索引顺序倒序扫描，无需排序和 COUNT
+
+alter table chat_history
+    add index idx_appId_createTime_id (appId, createTime, id);
@@ -0,0 +1,28 @@
+package com.szh.aicodebackend.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * 默认运行全部基准并开启 GC 分析（分配速率），结果输出为 JSON，可通过参数指定正则只运行部分基准：
+ * java -cp ... com.szh.aicodebackend.benchmark.BenchmarkRunner CodeParserBenchmark
+ * SampleTime 模式的结果中包含 p0.99 分位耗时
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "com.szh.aicodebackend.benchmark.*";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+}
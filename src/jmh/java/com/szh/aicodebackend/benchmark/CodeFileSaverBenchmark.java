@@ -0,0 +1,76 @@
+package com.szh.aicodebackend.benchmark;
+
+import com.szh.aicodebackend.ai.model.HtmlCodeResult;
+import com.szh.aicodebackend.ai.model.MultiFileCodeResult;
+import com.szh.aicodebackend.core.parser.HtmlCodeParser;
+import com.szh.aicodebackend.core.parser.MultiFileCodeParser;
+import com.szh.aicodebackend.core.saver.CodeFileSaverExecutor;
+import com.szh.aicodebackend.core.saver.HtmlCodeFileSaverTemplate;
+import com.szh.aicodebackend.core.saver.MultiFileCodeFileSaverTemplate;
+import com.szh.aicodebackend.core.saver.StreamingCodeFileSaver;
+import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码保存基准测试
+ * 对比一次性保存（CodeFileSaverTemplate）与边解析边落盘（StreamingCodeFileSaver）
+ * 注意：会写入 tmp/code_output 下的基准测试专用目录
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeFileSaverBenchmark {
+
+    /**
+     * 基准测试专用的应用ID，避免覆盖真实应用
+     */
+    private static final long BENCHMARK_APP_ID = -1L;
+
+    @Param({"1024", "32768", "512000"})
+    private int size;
+
+    private final HtmlCodeFileSaverTemplate htmlSaver = new HtmlCodeFileSaverTemplate();
+
+    private final MultiFileCodeFileSaverTemplate multiFileSaver = new MultiFileCodeFileSaverTemplate();
+
+    private HtmlCodeResult htmlCodeResult;
+
+    private MultiFileCodeResult multiFileCodeResult;
+
+    private List<String> multiFileTokens;
+
+    @Setup
+    public void setup() {
+        htmlCodeResult = new HtmlCodeParser().parseCode(LlmTranscripts.htmlTranscript(size));
+        String multiFileContent = LlmTranscripts.multiFileTranscript(size);
+        multiFileCodeResult = new MultiFileCodeParser().parseCode(multiFileContent);
+        multiFileTokens = LlmTranscripts.tokenize(multiFileContent);
+    }
+
+    @Benchmark
+    public File htmlSaveCode() {
+        return htmlSaver.saveCode(htmlCodeResult, BENCHMARK_APP_ID);
+    }
+
+    @Benchmark
+    public File multiFileSaveCode() {
+        return multiFileSaver.saveCode(multiFileCodeResult, BENCHMARK_APP_ID);
+    }
+
+    @Benchmark
+    public File multiFileStreamingSave() {
+        try (StreamingCodeFileSaver saver = CodeFileSaverExecutor.createStreamingSaver(CodeGenTypeEnum.MULTI_FILE, BENCHMARK_APP_ID)) {
+            for (String token : multiFileTokens) {
+                saver.append(token);
+            }
+            return saver.finish();
+        }
+    }
+}
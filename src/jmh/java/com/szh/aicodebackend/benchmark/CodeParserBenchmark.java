@@ -0,0 +1,51 @@
+package com.szh.aicodebackend.benchmark;
+
+import com.szh.aicodebackend.ai.model.HtmlCodeResult;
+import com.szh.aicodebackend.ai.model.MultiFileCodeResult;
+import com.szh.aicodebackend.core.parser.HtmlCodeParser;
+import com.szh.aicodebackend.core.parser.MultiFileCodeParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代码解析器基准测试
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeParserBenchmark {
+
+    /**
+     * 输出大小（字节）：1KB / 32KB / 500KB
+     */
+    @Param({"1024", "32768", "512000"})
+    private int size;
+
+    private final HtmlCodeParser htmlCodeParser = new HtmlCodeParser();
+
+    private final MultiFileCodeParser multiFileCodeParser = new MultiFileCodeParser();
+
+    private String htmlContent;
+
+    private String multiFileContent;
+
+    @Setup
+    public void setup() {
+        htmlContent = LlmTranscripts.htmlTranscript(size);
+        multiFileContent = LlmTranscripts.multiFileTranscript(size);
+    }
+
+    @Benchmark
+    public HtmlCodeResult htmlParseCode() {
+        return htmlCodeParser.parseCode(htmlContent);
+    }
+
+    @Benchmark
+    public MultiFileCodeResult multiFileParseCode() {
+        return multiFileCodeParser.parseCode(multiFileContent);
+    }
+}
@@ -0,0 +1,137 @@
+package com.szh.aicodebackend.benchmark;
+
+import cn.hutool.json.JSONUtil;
+import com.szh.aicodebackend.ai.model.message.AiResponseMessage;
+import com.szh.aicodebackend.ai.model.message.StreamMessage;
+import com.szh.aicodebackend.ai.model.message.ToolExecutedMessage;
+import com.szh.aicodebackend.ai.model.message.ToolRequestMessage;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.service.tool.ToolExecution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的 AI 输出样本
+ * 按线上录制的输出结构合成指定大小的样本，并按 token 粒度切分，固定随机种子保证各次运行一致
+ */
+public final class LlmTranscripts {
+
+    private static final long SEED = 42L;
+
+    private static final String INTRO = "好的，下面为你生成一个任务记录网站，包含任务的添加、完成和删除功能。\n\n";
+
+    private static final String OUTRO = "\n\n以上代码可以直接在浏览器中打开使用，如需调整样式请告诉我。\n";
+
+    private static final String HTML_LINE = "    <div class=\"task-item\" data-id=\"%d\"><input type=\"checkbox\"><span>任务 %d：整理本周的工作记录</span><button>删除</button></div>\n";
+
+    private static final String CSS_LINE = ".task-item-%d { display: flex; align-items: center; padding: 8px 12px; border-bottom: 1px solid #eee; }\n";
+
+    private static final String JS_LINE = "document.querySelector('[data-id=\"%d\"] button').addEventListener('click', () => removeTask(%d));\n";
+
+    private static final String VUE_LINE = "      <li v-for=\"item in list%d\" :key=\"item.id\" class=\"todo-item\">{{ item.title }}</li>\n";
+
+    private LlmTranscripts() {
+    }
+
+    /**
+     * 单文件 HTML 模式的完整输出
+     */
+    public static String htmlTranscript(int targetBytes) {
+        StringBuilder sb = new StringBuilder(targetBytes + 256);
+        sb.append(INTRO).append("```html\n<!DOCTYPE html>\n<html>\n<body>\n");
+        fillLines(sb, HTML_LINE, targetBytes);
+        sb.append("</body>\n</html>\n```").append(OUTRO);
+        return sb.toString();
+    }
+
+    /**
+     * 多文件模式的完整输出，HTML / CSS / JS 约各占三分之一
+     */
+    public static String multiFileTranscript(int targetBytes) {
+        int part = Math.max(targetBytes / 3, 1);
+        StringBuilder sb = new StringBuilder(targetBytes + 512);
+        sb.append(INTRO).append("```html\n<!DOCTYPE html>\n<html>\n<body>\n");
+        fillLines(sb, HTML_LINE, sb.length() + part);
+        sb.append("</body>\n</html>\n```\n\n```css\n");
+        fillLines(sb, CSS_LINE, sb.length() + part);
+        sb.append("```\n\n```javascript\n");
+        fillLines(sb, JS_LINE, sb.length() + part);
+        sb.append("```").append(OUTRO);
+        return sb.toString();
+    }
+
+    /**
+     * 按 LLM token 粒度（1~8 个字符）切分输出
+     */
+    public static List<String> tokenize(String transcript) {
+        Random random = new Random(SEED);
+        List<String> tokens = new ArrayList<>(transcript.length() / 4 + 1);
+        int i = 0;
+        while (i < transcript.length()) {
+            int end = Math.min(transcript.length(), i + 1 + random.nextInt(8));
+            tokens.add(transcript.substring(i, end));
+            i = end;
+        }
+        return tokens;
+    }
+
+    /**
+     * VUE_PROJECT 模式下门面输出的消息流
+     *
+     * @param targetBytes   目标大小
+     * @param withToolCalls 是否包含工具调用（每写入约 4KB 代码触发一次 writeFile）
+     */
+    public static List<StreamMessage> vueMessages(int targetBytes, boolean withToolCalls) {
+        List<StreamMessage> messages = new ArrayList<>();
+        Random random = new Random(SEED);
+        int size = 0;
+        int toolIndex = 0;
+        while (size < targetBytes) {
+            // 思考与说明文本
+            for (String token : tokenize("接下来创建第 " + toolIndex + " 个页面组件，包含列表展示和交互逻辑。\n")) {
+                messages.add(new AiResponseMessage(token));
+                size += token.length();
+            }
+            if (!withToolCalls) {
+                continue;
+            }
+            // 工具调用参数以增量片段形式到达
+            String id = "call_" + toolIndex;
+            StringBuilder code = new StringBuilder();
+            fillLines(code, VUE_LINE, 4096);
+            String arguments = JSONUtil.createObj()
+                    .set("relativeFilePath", "src/pages/Page" + toolIndex + ".vue")
+                    .set("content", "<template>\n  <ul>\n" + code + "  </ul>\n</template>\n")
+                    .toString();
+            int i = 0;
+            while (i < arguments.length()) {
+                int end = Math.min(arguments.length(), i + 1 + random.nextInt(16));
+                ToolExecutionRequest partial = ToolExecutionRequest.builder()
+                        .id(id)
+                        .name("writeFile")
+                        .arguments(arguments.substring(i, end))
+                        .build();
+                messages.add(new ToolRequestMessage(partial));
+                size += end - i;
+                i = end;
+            }
+            ToolExecution execution = ToolExecution.builder()
+                    .request(ToolExecutionRequest.builder().id(id).name("writeFile").arguments(arguments).build())
+                    .result("文件写入成功: src/pages/Page" + toolIndex + ".vue")
+                    .build();
+            messages.add(new ToolExecutedMessage(execution));
+            toolIndex++;
+        }
+        return messages;
+    }
+
+    private static void fillLines(StringBuilder sb, String lineTemplate, int targetLength) {
+        int n = 0;
+        while (sb.length() < targetLength) {
+            sb.append(String.format(lineTemplate, n, n));
+            n++;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.szh.aicodebackend.benchmark;
+
+import cn.hutool.core.util.ReflectUtil;
+import com.szh.aicodebackend.ai.model.message.StreamMessage;
+import com.szh.aicodebackend.ai.tools.*;
+import com.szh.aicodebackend.core.handler.JsonMessageStreamHandler;
+import com.szh.aicodebackend.core.handler.SimpleTextStreamHandler;
+import com.szh.aicodebackend.model.entity.User;
+import com.szh.aicodebackend.service.ChatHistoryService;
+import org.openjdk.jmh.annotations.*;
+import reactor.core.publisher.Flux;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流处理器基准测试
+ * 覆盖每个 token 都会经过的处理路径，对话历史写入替换为空实现，只测量处理器本身的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamHandlerBenchmark {
+
+    private static final long APP_ID = 1L;
+
+    @Param({"1024", "32768", "512000"})
+    private int size;
+
+    @Param({"true", "false"})
+    private boolean withToolCalls;
+
+    private final SimpleTextStreamHandler simpleTextStreamHandler = new SimpleTextStreamHandler();
+
+    private final JsonMessageStreamHandler jsonMessageStreamHandler = new JsonMessageStreamHandler();
+
+    private ChatHistoryService chatHistoryService;
+
+    private User loginUser;
+
+    private List<String> textTokens;
+
+    private List<StreamMessage> messages;
+
+    @Setup
+    public void setup() {
+        // 手动装配工具管理器（替代 Spring 注入）
+        ToolManager toolManager = new ToolManager();
+        BaseTool[] tools = {new FileWriteTool(), new FileReadTool(), new FileModifyTool(),
+                new FileDeleteTool(), new FileDirReadTool(), new ExitTool()};
+        ReflectUtil.setFieldValue(toolManager, "tools", tools);
+        toolManager.initTools();
+        ReflectUtil.setFieldValue(jsonMessageStreamHandler, "toolManager", toolManager);
+        chatHistoryService = noopChatHistoryService();
+        loginUser = new User();
+        loginUser.setId(1L);
+        textTokens = LlmTranscripts.tokenize(LlmTranscripts.multiFileTranscript(size));
+        messages = LlmTranscripts.vueMessages(size, withToolCalls);
+    }
+
+    @Benchmark
+    public Integer simpleTextHandle() {
+        return simpleTextStreamHandler.handle(Flux.fromIterable(textTokens), chatHistoryService, APP_ID, loginUser)
+                .reduce(0, (length, chunk) -> length + chunk.length())
+                .block();
+    }
+
+    @Benchmark
+    public Integer jsonMessageHandle() {
+        return jsonMessageStreamHandler.handle(Flux.fromIterable(messages), chatHistoryService, APP_ID, loginUser)
+                .reduce(0, (length, chunk) -> length + chunk.length())
+                .block();
+    }
+
+    /**
+     * 所有方法均为空实现的对话历史服务
+     */
+    private static ChatHistoryService noopChatHistoryService() {
+        return (ChatHistoryService) Proxy.newProxyInstance(
+                ChatHistoryService.class.getClassLoader(),
+                new Class<?>[]{ChatHistoryService.class},
+                (proxy, method, args) -> {
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return true;
+                    }
+                    if (returnType == int.class || returnType == long.class) {
+                        return returnType == int.class ? (Object) 0 : (Object) 0L;
+                    }
+                    return null;
+                });
+    }
+}
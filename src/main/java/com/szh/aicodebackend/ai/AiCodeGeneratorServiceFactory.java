@@ -2,13 +2,13 @@ package com.szh.aicodebackend.ai;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.szh.aicodebackend.ai.guardrail.PromptSafetyInputGuardrail;
 import com.szh.aicodebackend.ai.guardrail.RetryOutputGuardrail;
 import com.szh.aicodebackend.ai.tools.*;
 import com.szh.aicodebackend.exception.BusinessException;
 import com.szh.aicodebackend.exception.ErrorCode;
 import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
-import com.szh.aicodebackend.service.ChatHistoryService;
 import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
@@ -22,11 +22,18 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @Slf4j
 public class AiCodeGeneratorServiceFactory {
 
+    /**
+     * 对话记忆保留的消息数
+     */
+    private static final int CHAT_MEMORY_MAX_MESSAGES = 20;
+
     @Resource(name = "openAiChatModel")
     private ChatModel chatModel;
 
@@ -34,7 +41,7 @@ public class AiCodeGeneratorServiceFactory {
     private RedisChatMemoryStore redisChatMemoryStore;
 
     @Resource
-    private ChatHistoryService chatHistoryService;
+    private ChatMemoryHydrator chatMemoryHydrator;
 
     @Resource
     private ToolManager toolManager;
@@ -43,14 +50,23 @@ public class AiCodeGeneratorServiceFactory {
     private ApplicationContext applicationContext;
 
     /**
-     * AI 服务实例缓存
+     * 每种代码生成类型共享一个 AI 服务实例，对话记忆按 appId 在调用时获取
      */
-    private final Cache<String, AiCodeGeneratorService> serviceCache = Caffeine.newBuilder()
-            .maximumSize(1000)
+    private final Map<CodeGenTypeEnum, AiCodeGeneratorService> serviceMap = new ConcurrentHashMap<>();
+
+    /**
+     * 对话记忆缓存，记忆内容存放在 Redis 中，这里只缓存轻量的记忆对象。
+     * AI 服务实例内部也会按 memoryId 持有记忆对象且不会自行清理，缓存移除记忆时需同步从各服务实例中移除
+     */
+    private final Cache<Long, MessageWindowChatMemory> chatMemoryCache = Caffeine.newBuilder()
+            .maximumSize(100_000)
             .expireAfterWrite(Duration.ofMinutes(30))
             .expireAfterAccess(Duration.ofMinutes(10))
-            .removalListener((key, value, cause) -> {
-                log.debug("AI 服务实例被移除，缓存键: {}, 原因: {}", key, cause);
+            .removalListener((Long key, MessageWindowChatMemory value, RemovalCause cause) -> {
+                log.debug("对话记忆被移除，appId: {}, 原因: {}", key, cause);
+                if (key != null) {
+                    evictFromServices(key);
+                }
             })
             .build();
 
@@ -64,7 +80,7 @@ public class AiCodeGeneratorServiceFactory {
     }
 
     /**
-     * 根据 appId 获取服务（带缓存）这个方法是为了兼容历史逻辑
+     * 根据 appId 获取服务，这个方法是为了兼容历史逻辑
      */
     public AiCodeGeneratorService getAiCodeGeneratorService(long appId) {
         return getAiCodeGeneratorService(appId, CodeGenTypeEnum.HTML);
@@ -72,34 +88,57 @@ public class AiCodeGeneratorServiceFactory {
 
 
     /**
-     * 根据 appId 和代码生成类型获取服务（带缓存）
+     * 根据 appId 和代码生成类型获取服务，调用方需以 appId 作为 @MemoryId
      */
     public AiCodeGeneratorService getAiCodeGeneratorService(long appId, CodeGenTypeEnum codeGenType) {
-        String cacheKey = buildCacheKey(appId, codeGenType);
-        return serviceCache.get(cacheKey, key -> createAiCodeGeneratorService(appId, codeGenType));
+        // 提前准备好对话记忆：首次使用时按需从数据库加载历史，已缓存时检查历史是否被删除过
+        MessageWindowChatMemory chatMemory = chatMemoryCache.getIfPresent(appId);
+        if (chatMemory == null) {
+            getChatMemory(appId);
+        } else {
+            chatMemoryHydrator.refreshIfStale(appId, chatMemory, CHAT_MEMORY_MAX_MESSAGES);
+        }
+        return serviceMap.computeIfAbsent(codeGenType, this::createAiCodeGeneratorService);
+    }
+
+    /**
+     * 获取应用的对话记忆（带缓存）
+     */
+    private MessageWindowChatMemory getChatMemory(long appId) {
+        return chatMemoryCache.get(appId, id -> {
+            // 根据 appId 构建独立的对话记忆
+            MessageWindowChatMemory chatMemory = MessageWindowChatMemory
+                    .builder()
+                    .id(id)
+                    .chatMemoryStore(redisChatMemoryStore)
+                    .maxMessages(CHAT_MEMORY_MAX_MESSAGES)
+                    .build();
+            // Redis 中的记忆失效时才从数据库加载历史对话
+            chatMemoryHydrator.hydrate(id, chatMemory, CHAT_MEMORY_MAX_MESSAGES);
+            return chatMemory;
+        });
     }
 
     /**
-     * 构建缓存键
+     * 移除应用的对话记忆（应用删除时调用），Redis 中的记忆内容不受影响
+     *
+     * @param appId 应用 id
      */
-    private String buildCacheKey(long appId, CodeGenTypeEnum codeGenType) {
-        return appId + "_" + codeGenType.getValue();
+    public void evictChatMemory(long appId) {
+        chatMemoryCache.invalidate(appId);
+        // 移除监听器异步执行，这里同步移除一次
+        evictFromServices(appId);
+    }
+
+    private void evictFromServices(long appId) {
+        serviceMap.values().forEach(service -> service.evictChatMemory(appId));
     }
 
     /**
-     * 创建新的 AI 服务实例
+     * 创建共享的 AI 服务实例
      */
-    private AiCodeGeneratorService createAiCodeGeneratorService(long appId, CodeGenTypeEnum codeGenType) {
-        log.info("为 appId: {} 创建新的 AI 服务实例", appId);
-        // 根据 appId 构建独立的对话记忆
-        MessageWindowChatMemory chatMemory = MessageWindowChatMemory
-                .builder()
-                .id(appId)
-                .chatMemoryStore(redisChatMemoryStore)
-                .maxMessages(20)
-                .build();
-        // 从数据库加载历史对话到记忆中
-        chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 20);
+    private AiCodeGeneratorService createAiCodeGeneratorService(CodeGenTypeEnum codeGenType) {
+        log.info("创建 {} 类型的共享 AI 服务实例", codeGenType.getValue());
         // 根据代码生成类型选择不同的模型配置
         return switch (codeGenType) {
             // Vue 项目生成使用推理模型
@@ -108,7 +147,7 @@ public class AiCodeGeneratorServiceFactory {
                 yield AiServices.builder(AiCodeGeneratorService.class)
                     .chatModel(chatModel)
                     .streamingChatModel(reasoningStreamingChatModel)
-                    .chatMemoryProvider(memoryId -> chatMemory)
+                    .chatMemoryProvider(memoryId -> getChatMemory(((Number) memoryId).longValue()))
                     .inputGuardrails(new PromptSafetyInputGuardrail())
 //                    .outputGuardrails(new RetryOutputGuardrail())
                     .tools(toolManager.getAllTools())
@@ -125,7 +164,7 @@ public class AiCodeGeneratorServiceFactory {
                     .streamingChatModel(openAiStreamingChatModel)
                     .inputGuardrails(new PromptSafetyInputGuardrail())
 //                    .outputGuardrails(new RetryOutputGuardrail())
-                    .chatMemory(chatMemory)
+                    .chatMemoryProvider(memoryId -> getChatMemory(((Number) memoryId).longValue()))
                     .build();}
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR,
                     "不支持的代码生成类型: " + codeGenType.getValue());
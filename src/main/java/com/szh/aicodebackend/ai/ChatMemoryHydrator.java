@@ -0,0 +1,106 @@
+package com.szh.aicodebackend.ai;
+
+import com.szh.aicodebackend.constant.RedisConstant;
+import com.szh.aicodebackend.service.ChatHistoryService;
+import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 对话记忆预热
+ * 对话过程中 Redis 记忆与数据库历史同步追加，只有记忆过期或历史被删除时两者才会不一致。
+ * 每个应用维护一个历史版本号（删除时递增），记忆从数据库加载时记录当时的版本号作为水位，
+ * 记忆仍在且水位与版本号一致时直接复用 Redis 中的记忆，否则从数据库重新加载。
+ * 本地缓存的记忆对象在每次生成前也会比对一次，保证删除后的下一次生成不再带上被删除的消息。
+ */
+@Slf4j
+@Component
+public class ChatMemoryHydrator {
+
+    /**
+     * 与 RedisChatMemoryStore 的 ttl 保持一致
+     */
+    private static final Duration WATERMARK_TTL = Duration.ofSeconds(3600);
+
+    private static final String INITIAL_VERSION = "0";
+
+    @Resource
+    private RedisChatMemoryStore redisChatMemoryStore;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    @Lazy
+    private ChatHistoryService chatHistoryService;
+
+    /**
+     * 确保对话记忆可用，必要时从数据库加载（本地首次创建记忆对象时调用）
+     *
+     * @param appId      应用 id（即记忆 id）
+     * @param chatMemory 对话记忆
+     * @param maxCount   最多加载的历史条数
+     */
+    public void hydrate(long appId, MessageWindowChatMemory chatMemory, int maxCount) {
+        String watermarkKey = RedisConstant.CHAT_MEMORY_WATERMARK_KEY + appId;
+        List<String> values = readWatermarkAndVersion(appId);
+        String version = values.get(1);
+        if (Objects.equals(values.get(0), version) && !redisChatMemoryStore.getMessages(appId).isEmpty()) {
+            log.info("appId: {} 的对话记忆仍有效，跳过数据库加载", appId);
+            // 记忆每次更新都会续期，水位随之续期
+            stringRedisTemplate.expire(watermarkKey, WATERMARK_TTL);
+            return;
+        }
+        reload(appId, chatMemory, maxCount, version);
+    }
+
+    /**
+     * 本地已有记忆对象时在每次生成前调用，历史被删除过（水位落后于版本号）时从数据库重新加载
+     *
+     * @param appId      应用 id（即记忆 id）
+     * @param chatMemory 对话记忆
+     * @param maxCount   最多加载的历史条数
+     */
+    public void refreshIfStale(long appId, MessageWindowChatMemory chatMemory, int maxCount) {
+        List<String> values = readWatermarkAndVersion(appId);
+        if (Objects.equals(values.get(0), values.get(1))) {
+            return;
+        }
+        log.info("appId: {} 的对话历史已变更，重新加载对话记忆", appId);
+        reload(appId, chatMemory, maxCount, values.get(1));
+    }
+
+    /**
+     * @return [水位, 版本号]，水位可能为 null，版本号不存在时为初始版本
+     */
+    private List<String> readWatermarkAndVersion(long appId) {
+        List<String> values = stringRedisTemplate.opsForValue()
+                .multiGet(List.of(RedisConstant.CHAT_MEMORY_WATERMARK_KEY + appId, RedisConstant.CHAT_HISTORY_VERSION_KEY + appId));
+        String watermark = values == null ? null : values.get(0);
+        String version = values == null || values.get(1) == null ? INITIAL_VERSION : values.get(1);
+        return Arrays.asList(watermark, version);
+    }
+
+    private void reload(long appId, MessageWindowChatMemory chatMemory, int maxCount, String version) {
+        chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, maxCount);
+        stringRedisTemplate.opsForValue().set(RedisConstant.CHAT_MEMORY_WATERMARK_KEY + appId, version, WATERMARK_TTL);
+    }
+
+    /**
+     * 历史记录被删除后调用，使已有记忆失效
+     *
+     * @param appId 应用 id
+     */
+    public void invalidate(long appId) {
+        stringRedisTemplate.opsForValue().increment(RedisConstant.CHAT_HISTORY_VERSION_KEY + appId);
+    }
+}
@@ -0,0 +1,126 @@
+package com.szh.aicodebackend.ai.client;
+
+import com.szh.aicodebackend.model.vo.LlmHttpClientMetricsVO;
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带统计的共享大模型 HTTP 客户端
+ * 包装 JDK HttpClient，统计请求数、进行中的请求、失败数和首字节耗时
+ */
+public class PooledLlmHttpClient implements HttpClient {
+
+    private final HttpClient delegate;
+
+    private final LongAdder totalRequests = new LongAdder();
+
+    private final AtomicLong activeRequests = new AtomicLong();
+
+    private final LongAdder failedRequests = new LongAdder();
+
+    private final LongAdder totalTimeToFirstByteMillis = new LongAdder();
+
+    private final LongAdder openedStreams = new LongAdder();
+
+    public PooledLlmHttpClient(HttpClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public SuccessfulHttpResponse execute(HttpRequest request) {
+        totalRequests.increment();
+        activeRequests.incrementAndGet();
+        try {
+            return delegate.execute(request);
+        } catch (RuntimeException e) {
+            failedRequests.increment();
+            throw e;
+        } finally {
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+        totalRequests.increment();
+        activeRequests.incrementAndGet();
+        MeteredListener meteredListener = new MeteredListener(listener);
+        try {
+            delegate.execute(request, parser, meteredListener);
+        } catch (RuntimeException e) {
+            // 同步抛出时不会再回调监听器
+            meteredListener.markFinished(true);
+            throw e;
+        }
+    }
+
+    /**
+     * 获取统计快照
+     */
+    public LlmHttpClientMetricsVO getMetrics() {
+        LlmHttpClientMetricsVO metrics = new LlmHttpClientMetricsVO();
+        metrics.setTotalRequests(totalRequests.sum());
+        metrics.setActiveRequests(activeRequests.get());
+        metrics.setFailedRequests(failedRequests.sum());
+        long streams = openedStreams.sum();
+        metrics.setAvgTimeToFirstByteMillis(streams == 0 ? 0 : totalTimeToFirstByteMillis.sum() / streams);
+        return metrics;
+    }
+
+    /**
+     * 统计流式请求的监听器，结束回调可能来自 onError 或 onClose，只计一次
+     */
+    private class MeteredListener implements ServerSentEventListener {
+
+        private final ServerSentEventListener delegate;
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private MeteredListener(ServerSentEventListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onOpen(SuccessfulHttpResponse response) {
+            openedStreams.increment();
+            totalTimeToFirstByteMillis.add((System.nanoTime() - startNanos) / 1_000_000);
+            delegate.onOpen(response);
+        }
+
+        @Override
+        public void onEvent(ServerSentEvent event) {
+            delegate.onEvent(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            markFinished(true);
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onClose() {
+            markFinished(false);
+            delegate.onClose();
+        }
+
+        private void markFinished(boolean failed) {
+            if (finished.compareAndSet(false, true)) {
+                activeRequests.decrementAndGet();
+                if (failed) {
+                    failedRequests.increment();
+                }
+            }
+        }
+    }
+}
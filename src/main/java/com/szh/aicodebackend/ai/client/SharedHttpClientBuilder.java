@@ -0,0 +1,51 @@
+package com.szh.aicodebackend.ai.client;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+
+import java.time.Duration;
+
+/**
+ * 共享 HTTP 客户端构建器
+ * 模型构建时通过它获取同一个客户端实例，超时时间以全局配置为准，忽略单个模型的设置
+ */
+public class SharedHttpClientBuilder implements HttpClientBuilder {
+
+    private final HttpClient httpClient;
+
+    private final Duration connectTimeout;
+
+    private final Duration readTimeout;
+
+    public SharedHttpClientBuilder(HttpClient httpClient, Duration connectTimeout, Duration readTimeout) {
+        this.httpClient = httpClient;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public Duration connectTimeout() {
+        return connectTimeout;
+    }
+
+    @Override
+    public HttpClientBuilder connectTimeout(Duration timeout) {
+        // 构建器被所有模型共享，不允许单个模型修改
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return readTimeout;
+    }
+
+    @Override
+    public HttpClientBuilder readTimeout(Duration timeout) {
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        return httpClient;
+    }
+}
@@ -6,11 +6,12 @@ import lombok.NoArgsConstructor;
 
 /**
  * 流式消息响应基类
+ * 门面与流处理器之间直接传递消息对象，按类型分发，不再逐条序列化为 JSON
  */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class StreamMessage {
+public abstract sealed class StreamMessage permits AiResponseMessage, ToolRequestMessage, ToolExecutedMessage {
 
     /**
      * 消息类型
@@ -0,0 +1,113 @@
+package com.szh.aicodebackend.ai.routing;
+
+import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 代码生成类型本地预分类
+ * 基于关键词和长度的启发式规则，只对特征明确的需求直接给出结果，不确定时返回 null 交给大模型判断。
+ * 关键词按归一化后的文本匹配（小写、去除空白和标点）
+ */
+public final class CodeGenTypeHeuristics {
+
+    /**
+     * 复杂项目特征：多页面、交互、数据管理
+     */
+    private static final List<String> VUE_KEYWORDS = byLengthDesc(
+            "vue", "react", "管理系统", "后台管理", "后台", "dashboard", "crud", "登录注册", "注册登录", "用户登录",
+            "购物车", "电商", "商城", "路由", "多页面", "数据管理", "增删改查", "状态管理", "组件化", "权限"
+    );
+
+    /**
+     * 多文件特征：明确要求分离代码
+     */
+    private static final List<String> MULTI_FILE_KEYWORDS = byLengthDesc(
+            "多文件", "代码分离", "文件分离", "css文件", "js文件", "单独的css", "单独的js", "stylecss", "scriptjs"
+    );
+
+    /**
+     * 简单展示页特征
+     */
+    private static final List<String> HTML_KEYWORDS = byLengthDesc(
+            "单页", "落地页", "着陆页", "展示页", "介绍页", "个人主页", "简历", "名片", "宣传页", "静态页",
+            "倒计时", "时钟", "计算器", "小游戏", "活动页"
+    );
+
+    /**
+     * 不超过该长度且只有展示页特征时判定为 HTML
+     */
+    private static final int SIMPLE_PROMPT_MAX_LENGTH = 60;
+
+    private CodeGenTypeHeuristics() {
+    }
+
+    /**
+     * 预分类
+     *
+     * @param normalizedPrompt 归一化后的需求
+     * @return 代码生成类型，不确定时返回 null
+     */
+    public static CodeGenTypeEnum classify(String normalizedPrompt) {
+        int vueHits = countHits(normalizedPrompt, VUE_KEYWORDS);
+        int multiFileHits = countHits(normalizedPrompt, MULTI_FILE_KEYWORDS);
+        int htmlHits = countHits(normalizedPrompt, HTML_KEYWORDS);
+        // 只有一类特征命中时才直接判定
+        if (vueHits >= 2 && multiFileHits == 0 && htmlHits == 0) {
+            return CodeGenTypeEnum.VUE_PROJECT;
+        }
+        if (multiFileHits > 0 && vueHits == 0) {
+            return CodeGenTypeEnum.MULTI_FILE;
+        }
+        if (htmlHits > 0 && vueHits == 0 && multiFileHits == 0
+                && normalizedPrompt.length() <= SIMPLE_PROMPT_MAX_LENGTH) {
+            return CodeGenTypeEnum.HTML;
+        }
+        return null;
+    }
+
+    /**
+     * 统计命中的关键词数，相互重叠的命中只算一次（如“后台管理系统”同时包含“后台管理”“管理系统”“后台”）
+     *
+     * @param keywords 按长度降序排列的关键词
+     */
+    private static int countHits(String text, List<String> keywords) {
+        boolean[] covered = new boolean[text.length()];
+        int hits = 0;
+        for (String keyword : keywords) {
+            boolean counted = false;
+            int index = text.indexOf(keyword);
+            while (index >= 0) {
+                // 与已命中的文本重叠时只扩大覆盖范围，不计数
+                if (cover(covered, index, keyword.length()) && !counted) {
+                    hits++;
+                    counted = true;
+                }
+                index = text.indexOf(keyword, index + 1);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 标记覆盖范围
+     *
+     * @return 该范围此前是否完全未被覆盖
+     */
+    private static boolean cover(boolean[] covered, int start, int length) {
+        boolean fresh = true;
+        for (int i = start; i < start + length; i++) {
+            fresh &= !covered[i];
+            covered[i] = true;
+        }
+        return fresh;
+    }
+
+    private static List<String> byLengthDesc(String... keywords) {
+        return Arrays.stream(keywords)
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toList();
+    }
+}
@@ -0,0 +1,157 @@
+package com.szh.aicodebackend.ai.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.szh.aicodebackend.ai.AiCodeGenTypeRoutingService;
+import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 代码生成类型路由
+ * 依次尝试：归一化需求精确匹配缓存 -> 本地预分类 -> 相似需求（SimHash）缓存 -> 大模型判断，
+ * 大模型的判断结果写入两级缓存，模板化的重复需求无需再次调用大模型；大模型结果无法解析时回退为 HTML，不缓存
+ */
+@Slf4j
+@Component
+public class CodeGenTypeRouter {
+
+    /**
+     * 字符 shingle 长度，中文需求使用二元组区分度更好
+     */
+    private static final int SHINGLE_SIZE = 2;
+
+    /**
+     * 相似需求的最大汉明距离，模板化需求替换少量词语后的距离通常在 10 左右，无关需求约为 32
+     */
+    private static final int MAX_HAMMING_DISTANCE = 12;
+
+    /**
+     * 过短的需求特征太少，不做相似匹配
+     */
+    private static final int MIN_SIMILAR_LENGTH = 8;
+
+    @Resource
+    private AiCodeGenTypeRoutingService aiCodeGenTypeRoutingService;
+
+    /**
+     * 归一化需求 -> 代码生成类型
+     */
+    private final Cache<String, CodeGenTypeEnum> exactCache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+
+    /**
+     * SimHash -> 代码生成类型，容量较小，查找时直接遍历比较汉明距离
+     */
+    private final Cache<Long, CodeGenTypeEnum> similarCache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+
+    /**
+     * 根据用户需求路由代码生成类型
+     *
+     * @param userPrompt 用户需求
+     * @return 代码生成类型
+     */
+    public CodeGenTypeEnum route(String userPrompt) {
+        String normalized = normalize(userPrompt);
+        CodeGenTypeEnum cached = exactCache.getIfPresent(normalized);
+        if (cached != null) {
+            log.info("路由命中缓存：{}", cached.getValue());
+            return cached;
+        }
+        CodeGenTypeEnum heuristic = CodeGenTypeHeuristics.classify(normalized);
+        if (heuristic != null) {
+            log.info("路由命中本地预分类：{}", heuristic.getValue());
+            exactCache.put(normalized, heuristic);
+            return heuristic;
+        }
+        long simHash = 0;
+        boolean similarEnabled = normalized.length() >= MIN_SIMILAR_LENGTH;
+        if (similarEnabled) {
+            simHash = simHash(normalized);
+            CodeGenTypeEnum similar = findSimilar(simHash);
+            if (similar != null) {
+                log.info("路由命中相似需求：{}", similar.getValue());
+                exactCache.put(normalized, similar);
+                return similar;
+            }
+        }
+        CodeGenTypeEnum routed = aiCodeGenTypeRoutingService.routeCodeGenType(userPrompt);
+        if (routed == null) {
+            // 大模型返回无法解析的类型，使用默认类型且不缓存，下次仍交给大模型判断
+            log.warn("大模型未返回有效的代码生成类型，使用默认类型 {}", CodeGenTypeEnum.HTML.getValue());
+            return CodeGenTypeEnum.HTML;
+        }
+        exactCache.put(normalized, routed);
+        if (similarEnabled) {
+            similarCache.put(simHash, routed);
+        }
+        return routed;
+    }
+
+    /**
+     * 归一化：小写，去除空白与标点
+     */
+    static String normalize(String prompt) {
+        StringBuilder sb = new StringBuilder(prompt.length());
+        prompt.toLowerCase(Locale.ROOT).codePoints()
+                .filter(Character::isLetterOrDigit)
+                .forEach(sb::appendCodePoint);
+        return sb.toString();
+    }
+
+    /**
+     * 基于字符 shingle 计算 64 位 SimHash
+     */
+    static long simHash(String text) {
+        int[] weights = new int[Long.SIZE];
+        int shingles = Math.max(1, text.length() - SHINGLE_SIZE + 1);
+        for (int i = 0; i < shingles; i++) {
+            long hash = murmurMix(text.substring(i, Math.min(text.length(), i + SHINGLE_SIZE)).hashCode());
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += ((hash >>> bit) & 1) == 1 ? 1 : -1;
+            }
+        }
+        long simHash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash;
+    }
+
+    private CodeGenTypeEnum findSimilar(long simHash) {
+        CodeGenTypeEnum best = null;
+        int bestDistance = MAX_HAMMING_DISTANCE + 1;
+        for (Map.Entry<Long, CodeGenTypeEnum> entry : similarCache.asMap().entrySet()) {
+            int distance = Long.bitCount(entry.getKey() ^ simHash);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = entry.getValue();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 打散 String.hashCode，使各位分布均匀
+     */
+    private static long murmurMix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
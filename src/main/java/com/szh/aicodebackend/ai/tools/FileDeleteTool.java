@@ -1,17 +1,16 @@
 package com.szh.aicodebackend.ai.tools;
 
 import cn.hutool.json.JSONObject;
-import com.szh.aicodebackend.constant.AppConstant;
+import com.szh.aicodebackend.core.vfs.ProjectFileSystem;
+import com.szh.aicodebackend.core.vfs.ProjectFileSystemManager;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 /**
  * 文件删除工具
@@ -20,6 +19,9 @@ import java.nio.file.Paths;
 @Component
 public class FileDeleteTool extends BaseTool{
 
+    @Resource
+    private ProjectFileSystemManager projectFileSystemManager;
+
     @Tool("删除指定路径的文件")
     public String deleteFile(
             @P("文件的相对路径")
@@ -27,25 +29,24 @@ public class FileDeleteTool extends BaseTool{
             @ToolMemoryId Long appId
     ) {
         try {
-            Path path = Paths.get(relativeFilePath);
-            if (!path.isAbsolute()) {
-                String projectDirName = "vue_project_" + appId;
-                Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, projectDirName);
-                path = projectRoot.resolve(relativeFilePath);
-            }
-            if (!Files.exists(path)) {
+            ProjectFileSystem fileSystem = projectFileSystemManager.get(appId);
+            String key = fileSystem.toKey(relativeFilePath);
+            if (key == null) {
                 return "警告：文件不存在，无需删除 - " + relativeFilePath;
             }
-            if (!Files.isRegularFile(path)) {
-                return "错误：指定路径不是文件，无法删除 - " + relativeFilePath;
+            if (!fileSystem.isFile(key)) {
+                if (fileSystem.isDirectory(key)) {
+                    return "错误：指定路径不是文件，无法删除 - " + relativeFilePath;
+                }
+                return "警告：文件不存在，无需删除 - " + relativeFilePath;
             }
             // 安全检查：避免删除重要文件
-            String fileName = path.getFileName().toString();
+            String fileName = key.substring(key.lastIndexOf('/') + 1);
             if (isImportantFile(fileName)) {
                 return "错误：不允许删除重要文件 - " + fileName;
             }
-            Files.delete(path);
-            log.info("成功删除文件: {}", path.toAbsolutePath());
+            fileSystem.delete(key);
+            log.info("成功删除文件: {}", key);
             return "文件删除成功: " + relativeFilePath;
         } catch (IOException e) {
             String errorMessage = "删除文件失败: " + relativeFilePath + ", 错误: " + e.getMessage();
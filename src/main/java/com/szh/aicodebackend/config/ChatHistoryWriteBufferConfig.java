@@ -0,0 +1,34 @@
+package com.szh.aicodebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 对话历史异步批量写入配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "chat-history.write-buffer")
+@Data
+public class ChatHistoryWriteBufferConfig {
+
+    /**
+     * 单次批量插入的最大条数，达到即刷盘
+     */
+    private int batchSize = 200;
+
+    /**
+     * 最长攒批时间（毫秒），到时即刷盘
+     */
+    private long flushIntervalMillis = 500;
+
+    /**
+     * 队列容量
+     */
+    private int capacity = 10000;
+
+    /**
+     * 队列已满时的最长等待时间（毫秒），超时后改为同步写入
+     */
+    private long offerTimeoutMillis = 200;
+}
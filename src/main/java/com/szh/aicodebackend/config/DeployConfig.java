@@ -0,0 +1,24 @@
+package com.szh.aicodebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 应用部署配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "deploy")
+@Data
+public class DeployConfig {
+
+    /**
+     * 每个应用保留的部署版本数（含当前版本），更早的版本及不再被引用的文件内容会被清理
+     */
+    private int keepReleases = 2;
+
+    /**
+     * 是否使用硬链接引用文件内容，关闭或文件系统不支持时改为复制
+     */
+    private boolean hardLinks = true;
+}
@@ -0,0 +1,56 @@
+package com.szh.aicodebackend.config;
+
+import com.szh.aicodebackend.ai.client.PooledLlmHttpClient;
+import com.szh.aicodebackend.ai.client.SharedHttpClientBuilder;
+import dev.langchain4j.http.client.jdk.JdkHttpClient;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * 大模型 HTTP 客户端配置
+ * 所有模型共用一个 HTTP 客户端，连接池与 TLS 会话在模型之间复用。
+ * JDK HttpClient 的连接池参数是 JVM 级别的，且只在首次加载 java.net.http 时读取，不能在这里按客户端配置，
+ * 需要时通过启动参数设置，如 -Djdk.httpclient.keepalive.timeout=30 -Djdk.httpclient.connectionPoolSize=64
+ */
+@Configuration
+@ConfigurationProperties(prefix = "langchain4j.http-client")
+@Data
+public class LlmHttpClientConfig {
+
+    /**
+     * 建立连接超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(15);
+
+    /**
+     * 等待响应超时时间
+     */
+    private Duration readTimeout = Duration.ofSeconds(60);
+
+    /**
+     * 是否优先使用 HTTP/2，同一主机的并发请求复用一个连接
+     */
+    private boolean http2 = true;
+
+    @Bean
+    public PooledLlmHttpClient pooledLlmHttpClient() {
+        HttpClient.Builder jdkClientBuilder = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1);
+        JdkHttpClient delegate = JdkHttpClient.builder()
+                .httpClientBuilder(jdkClientBuilder)
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .build();
+        return new PooledLlmHttpClient(delegate);
+    }
+
+    @Bean
+    public SharedHttpClientBuilder llmHttpClientBuilder(PooledLlmHttpClient pooledLlmHttpClient) {
+        return new SharedHttpClientBuilder(pooledLlmHttpClient, connectTimeout, readTimeout);
+    }
+}
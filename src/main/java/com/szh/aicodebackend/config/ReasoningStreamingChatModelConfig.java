@@ -1,5 +1,6 @@
 package com.szh.aicodebackend.config;
 
+import com.szh.aicodebackend.ai.client.SharedHttpClientBuilder;
 
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
@@ -33,8 +34,9 @@ public class ReasoningStreamingChatModelConfig {
      */
     @Bean
     @Scope("prototype")
-    public StreamingChatModel reasoningStreamingChatModelPrototype() {
+    public StreamingChatModel reasoningStreamingChatModelPrototype(SharedHttpClientBuilder llmHttpClientBuilder) {
         return OpenAiStreamingChatModel.builder()
+                .httpClientBuilder(llmHttpClientBuilder)
                 .apiKey(apiKey)
                 .baseUrl(baseUrl)
                 .modelName(modelName)
@@ -1,5 +1,6 @@
 package com.szh.aicodebackend.config;
 
+import com.szh.aicodebackend.ai.client.SharedHttpClientBuilder;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import lombok.Data;
@@ -32,8 +33,9 @@ public class RoutingAiModelConfig {
      */
     @Bean
     @Scope("prototype")
-    public ChatModel routingChatModelPrototype() {
+    public ChatModel routingChatModelPrototype(SharedHttpClientBuilder llmHttpClientBuilder) {
         return OpenAiChatModel.builder()
+                .httpClientBuilder(llmHttpClientBuilder)
                 .apiKey(apiKey)
                 .modelName(modelName)
                 .baseUrl(baseUrl)
@@ -0,0 +1,89 @@
+package com.szh.aicodebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 网页截图配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "screenshot")
+@Data
+public class ScreenshotConfig {
+
+    /**
+     * 浏览器实例数，即同时进行的截图数
+     */
+    private int poolSize = 2;
+
+    /**
+     * 单个浏览器实例最多使用次数，达到后销毁重建，避免内存持续增长
+     */
+    private int maxUsesPerBrowser = 50;
+
+    /**
+     * 等待浏览器的截图任务数上限，超过后拒绝
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * 等待浏览器的最长时间（秒）
+     */
+    private int leaseTimeoutSeconds = 60;
+
+    /**
+     * 页面无 DOM 变化持续该时长（毫秒）即视为渲染完成
+     */
+    private long quietPeriodMillis = 500;
+
+    /**
+     * 等待页面渲染完成的最长时间（毫秒）
+     */
+    private long maxRenderWaitMillis = 8000;
+
+    /**
+     * 浏览器窗口宽度
+     */
+    private int width = 1600;
+
+    /**
+     * 浏览器窗口高度
+     */
+    private int height = 900;
+
+    /**
+     * 封面图输出宽度（按比例缩放），0 表示保持截图原始宽度
+     */
+    private int outputWidth = 0;
+
+    /**
+     * 截图任务防抖时间（毫秒），期间同一应用的重复部署合并为一次截图
+     */
+    private long debounceMillis = 3000;
+
+    /**
+     * 截图任务最多尝试次数
+     */
+    private int maxAttempts = 4;
+
+    /**
+     * 首次重试的等待时间（毫秒），之后每次翻倍
+     */
+    private long retryBackoffMillis = 5000;
+
+    /**
+     * 重试等待时间上限（毫秒）
+     */
+    private long maxRetryBackoffMillis = 60000;
+
+    /**
+     * 单次批量更新封面的最大条数
+     */
+    private int coverBatchSize = 100;
+
+    /**
+     * 批量更新封面的间隔（毫秒）
+     */
+    private long coverFlushIntervalMillis = 1000;
+}
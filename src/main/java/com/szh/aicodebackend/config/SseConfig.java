@@ -0,0 +1,24 @@
+package com.szh.aicodebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SSE 输出配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "sse")
+@Data
+public class SseConfig {
+
+    /**
+     * token 合并的时间窗口（毫秒），窗口内的 token 合并为一个事件发送，0 表示不合并
+     */
+    private long flushIntervalMillis = 20;
+
+    /**
+     * 单个事件累计达到该字节数时立即发送
+     */
+    private int flushBytes = 512;
+}
@@ -0,0 +1,44 @@
+package com.szh.aicodebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 静态资源（应用预览）配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "static-resource")
+@Data
+public class StaticResourceConfig {
+
+    /**
+     * 文件元数据缓存的最大条目数
+     */
+    private long metadataCacheSize = 20000;
+
+    /**
+     * 元数据缓存命中后，超过该时长（毫秒）才重新检查文件大小和修改时间
+     */
+    private long revalidateMillis = 1000;
+
+    /**
+     * 小于该大小（字节）的文件不预压缩
+     */
+    private long minCompressSize = 1024;
+
+    /**
+     * 是否在容器支持时使用 sendfile 零拷贝发送文件
+     */
+    private boolean sendfile = true;
+
+    /**
+     * 不超过该大小（字节）的文件内容（及 gzip 副本）缓存在内存中，0 表示不缓存
+     */
+    private long hotAssetMaxFileSize = 256 * 1024;
+
+    /**
+     * 内存中文件内容缓存的总字节数上限
+     */
+    private long hotAssetCacheBytes = 64L * 1024 * 1024;
+}
@@ -1,5 +1,6 @@
 package com.szh.aicodebackend.config;
 
+import com.szh.aicodebackend.ai.client.SharedHttpClientBuilder;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import lombok.Data;
@@ -29,8 +30,9 @@ public class StreamingChatModelConfig {
 
     @Bean
     @Scope("prototype")
-    public StreamingChatModel streamingChatModelPrototype() {
+    public StreamingChatModel streamingChatModelPrototype(SharedHttpClientBuilder llmHttpClientBuilder) {
         return OpenAiStreamingChatModel.builder()
+                .httpClientBuilder(llmHttpClientBuilder)
                 .baseUrl(baseUrl)
                 .apiKey(apiKey)
                 .modelName(modelName)
@@ -0,0 +1,49 @@
+package com.szh.aicodebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Vue 项目构建配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "vue-build")
+@Data
+public class VueBuildConfig {
+
+    /**
+     * 同时进行的构建数
+     */
+    private int workerCount = 2;
+
+    /**
+     * 排队中的构建数上限，超过后拒绝新的构建
+     */
+    private int queueCapacity = 50;
+
+    /**
+     * 部署时等待构建结果的最长时间（秒），包含排队时间
+     */
+    private int deployWaitTimeoutSeconds = 600;
+
+    /**
+     * 是否按 package.json 共享 node_modules
+     */
+    private boolean sharedDependencies = true;
+
+    /**
+     * npm install 超时时间（秒）
+     */
+    private int installTimeoutSeconds = 300;
+
+    /**
+     * npm run build 超时时间（秒）
+     */
+    private int buildTimeoutSeconds = 180;
+
+    /**
+     * 每次构建保留的日志行数
+     */
+    private int logMaxLines = 500;
+}
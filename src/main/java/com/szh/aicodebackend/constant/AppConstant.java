@@ -27,4 +27,39 @@ public interface AppConstant {
      */
     String CODE_DEPLOY_HOST = "http://localhost";
 
+    /**
+     * 对话历史写入失败时的落盘目录，启动时重新导入
+     */
+    String CHAT_HISTORY_FALLBACK_DIR = System.getProperty("user.dir") + "/tmp/chat_history_fallback";
+
+    /**
+     * 共享 npm 依赖目录，按 package.json 内容哈希存放 node_modules
+     */
+    String NPM_STORE_DIR = System.getProperty("user.dir") + "/tmp/npm_store";
+
+    /**
+     * Vue 项目构建指纹目录，记录每个项目最近一次成功构建时的源码哈希
+     */
+    String VUE_BUILD_CACHE_DIR = System.getProperty("user.dir") + "/tmp/vue_build_cache";
+
+    /**
+     * 部署文件内容仓库，按内容哈希存放，各次部署通过硬链接引用
+     */
+    String DEPLOY_BLOB_DIR = System.getProperty("user.dir") + "/tmp/deploy_blobs";
+
+    /**
+     * 部署版本目录，每个 deployKey 下保存最近几次部署的文件树和清单
+     */
+    String DEPLOY_RELEASE_DIR = System.getProperty("user.dir") + "/tmp/deploy_releases";
+
+    /**
+     * 预览文件的预压缩副本目录，与应用生成目录结构一致
+     */
+    String STATIC_PRECOMPRESSED_DIR = System.getProperty("user.dir") + "/tmp/static_precompressed";
+
+    /**
+     * 项目下载压缩包缓存目录，每个项目保留最近一次的压缩包
+     */
+    String DOWNLOAD_CACHE_DIR = System.getProperty("user.dir") + "/tmp/download_cache";
+
 }
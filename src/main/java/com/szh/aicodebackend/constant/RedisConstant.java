@@ -4,6 +4,26 @@ public class RedisConstant {
 
     static final String GOOD_APP_KEY = "good_app:";
 
+    /**
+     * 对话历史版本号，历史被删除时递增
+     */
+    public static final String CHAT_HISTORY_VERSION_KEY = "chat_history:version:";
+
+    /**
+     * 对话记忆水位，记录记忆加载时的历史版本号
+     */
+    public static final String CHAT_MEMORY_WATERMARK_KEY = "chat_memory:watermark:";
+
+    /**
+     * 待执行的截图任务（Hash，field 为应用 id）
+     */
+    public static final String SCREENSHOT_JOB_KEY = "screenshot:job";
+
+    /**
+     * 当前封面对应的部署内容哈希
+     */
+    public static final String SCREENSHOT_CONTENT_HASH_KEY = "screenshot:content_hash:";
+
 
     static String getGoodAppKey(Long appId) {
         return GOOD_APP_KEY + appId;
@@ -5,15 +5,16 @@ import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONUtil;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
-import com.szh.aicodebackend.ai.AiCodeGenTypeRoutingService;
-import com.szh.aicodebackend.ai.AiCodeGenTypeRoutingServiceFactory;
 import com.szh.aicodebackend.ai.AiCodeGeneratorServiceFactory;
+import com.szh.aicodebackend.ai.client.PooledLlmHttpClient;
+import com.szh.aicodebackend.ai.routing.CodeGenTypeRouter;
 import com.szh.aicodebackend.annotation.AuthCheck;
 import com.szh.aicodebackend.common.BaseResponse;
 import com.szh.aicodebackend.common.DeleteRequest;
 import com.szh.aicodebackend.common.ResultUtils;
 import com.szh.aicodebackend.constant.AppConstant;
 import com.szh.aicodebackend.constant.UserConstant;
+import com.szh.aicodebackend.core.sse.SseStreamWriter;
 import com.szh.aicodebackend.exception.BusinessException;
 import com.szh.aicodebackend.exception.ErrorCode;
 import com.szh.aicodebackend.exception.ThrowUtils;
@@ -22,6 +23,8 @@ import com.szh.aicodebackend.model.entity.App;
 import com.szh.aicodebackend.model.entity.User;
 import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
 import com.szh.aicodebackend.model.vo.AppVO;
+import com.szh.aicodebackend.model.vo.LlmHttpClientMetricsVO;
+import com.szh.aicodebackend.model.vo.VueBuildStatusVO;
 import com.szh.aicodebackend.ratelimit.annotation.RateLimit;
 import com.szh.aicodebackend.ratelimit.enums.RateLimitType;
 import com.szh.aicodebackend.service.AppService;
@@ -33,13 +36,12 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
 import java.io.File;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 /**
  * 应用 控制层。
@@ -60,7 +62,13 @@ public class AppController {
     private ProjectDownloadService projectDownloadService;
 
     @Resource
-    private AiCodeGenTypeRoutingServiceFactory aiCodeGenTypeRoutingServiceFactory;
+    private CodeGenTypeRouter codeGenTypeRouter;
+
+    @Resource
+    private SseStreamWriter sseStreamWriter;
+
+    @Resource
+    private PooledLlmHttpClient pooledLlmHttpClient;
 
     /**
      * 创建应用
@@ -83,8 +91,7 @@ public class AppController {
         //todo 应用名称，暂时取prompt前十二位，后续改造为Ai生成名称
         app.setAppName(initPrompt.substring(0, Math.min(12, initPrompt.length())));
         //ai根据初始信息判断生成的应用类型
-        AiCodeGenTypeRoutingService aiCodeGenTypeRoutingService = aiCodeGenTypeRoutingServiceFactory.createAiCodeGenTypeRoutingService();
-        CodeGenTypeEnum selectedCodeGenType = aiCodeGenTypeRoutingService.routeCodeGenType(appAddRequest.getInitPrompt());
+        CodeGenTypeEnum selectedCodeGenType = codeGenTypeRouter.route(initPrompt);
         app.setCodeGenType(selectedCodeGenType.getValue());
         //入库
         boolean result = appService.save(app);
@@ -272,6 +279,17 @@ public class AppController {
         return ResultUtils.success(appService.getAppVO(app));
     }
 
+    /**
+     * 管理员查看大模型 HTTP 客户端统计
+     *
+     * @return 客户端统计
+     */
+    @GetMapping("/admin/llm/client/metrics")
+    @AuthCheck(mustRole = UserConstant.ADMIN_ROLE)
+    public BaseResponse<LlmHttpClientMetricsVO> getLlmHttpClientMetrics() {
+        return ResultUtils.success(pooledLlmHttpClient.getMetrics());
+    }
+
     /**
      * 聊天生成代码(流式)
      * @param appId 应用id
@@ -281,9 +299,9 @@ public class AppController {
      */
     @RateLimit(limitType = RateLimitType.USER, rate = 10, rateInterval = 60)
     @GetMapping(value = "/chat/gen/code", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public Flux<ServerSentEvent<String>> chatToGenCode(@RequestParam Long appId,
-                                                       @RequestParam String message,
-                                                       HttpServletRequest request) {
+    public ResponseBodyEmitter chatToGenCode(@RequestParam Long appId,
+                                             @RequestParam String message,
+                                             HttpServletRequest request) {
         // 参数校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
         ThrowUtils.throwIf(StrUtil.isBlank(message), ErrorCode.PARAMS_ERROR, "用户消息不能为空");
@@ -291,23 +309,8 @@ public class AppController {
         User loginUser = userService.getLoginUser(request);
         // 调用服务生成代码（流式）
         Flux<String> contentFlux = appService.chatToGenCode(appId, message, loginUser);
-        // 转换为 ServerSentEvent 格式
-        return contentFlux
-                .map(chunk -> {
-                    // 将内容包装成JSON对象
-                    Map<String, String> wrapper = Map.of("d", chunk);
-                    String jsonData = JSONUtil.toJsonStr(wrapper);
-                    return ServerSentEvent.<String>builder()
-                            .data(jsonData)
-                            .build();
-                })
-                .concatWith(Mono.just(
-                        // 发送结束事件
-                        ServerSentEvent.<String>builder()
-                                .event("done")
-                                .data("")
-                                .build()
-                ));
+        // 直接编码为 SSE 字节帧写出，合并相邻 token，结束时发送 done 事件
+        return sseStreamWriter.write(contentFlux);
     }
 
     /**
@@ -329,6 +332,76 @@ public class AppController {
         return ResultUtils.success(deployUrl);
     }
 
+    /**
+     * 查看 Vue 项目构建状态
+     *
+     * @param appId   应用 ID
+     * @param request 请求
+     * @return 最近一次构建状态
+     */
+    @GetMapping("/build/status")
+    public BaseResponse<VueBuildStatusVO> getVueBuildStatus(@RequestParam Long appId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(appService.getVueBuildStatus(appId, loginUser));
+    }
+
+    /**
+     * 订阅 Vue 项目构建状态（SSE）
+     * 每次状态变化推送一个 build 事件，构建结束后发送 done 事件
+     *
+     * @param appId   应用 ID
+     * @param request 请求
+     * @return 构建状态事件流
+     */
+    @GetMapping(value = "/build/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> watchVueBuildStatus(@RequestParam Long appId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return appService.watchVueBuildStatus(appId, loginUser)
+                .map(status -> ServerSentEvent.<String>builder()
+                        .event("build")
+                        .data(JSONUtil.toJsonStr(status))
+                        .build())
+                .concatWith(Flux.just(ServerSentEvent.<String>builder()
+                        .event("done")
+                        .data("")
+                        .build()));
+    }
+
+    /**
+     * 查看 Vue 项目最近一次构建日志
+     *
+     * @param appId   应用 ID
+     * @param request 请求
+     * @return 日志行（最多保留最近若干行）
+     */
+    @GetMapping("/build/log")
+    public BaseResponse<List<String>> getVueBuildLog(@RequestParam Long appId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(appService.getVueBuildLog(appId, loginUser));
+    }
+
+    /**
+     * 订阅 Vue 项目构建日志（SSE）
+     * 先推送已有日志，构建进行中时继续推送新输出，每行一个 log 事件
+     *
+     * @param appId   应用 ID
+     * @param request 请求
+     * @return 日志事件流
+     */
+    @GetMapping(value = "/build/log/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> watchVueBuildLog(@RequestParam Long appId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return appService.watchVueBuildLog(appId, loginUser)
+                .map(line -> ServerSentEvent.<String>builder()
+                        .event("log")
+                        .data(line)
+                        .build())
+                .concatWith(Flux.just(ServerSentEvent.<String>builder()
+                        .event("done")
+                        .data("")
+                        .build()));
+    }
+
     /**
      * 应用下载
      *
@@ -358,6 +431,6 @@ public class AppController {
         //生成下载的文件名
         String downloadFileName = String.valueOf(appId);
         //调用下载服务
-        projectDownloadService.downloadProjectAsZip(sourceDirPath, downloadFileName, response);
+        projectDownloadService.downloadProjectAsZip(sourceDirPath, downloadFileName, request, response);
     }
 }
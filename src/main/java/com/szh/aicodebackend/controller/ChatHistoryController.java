@@ -11,6 +11,7 @@ import com.szh.aicodebackend.exception.ThrowUtils;
 import com.szh.aicodebackend.model.dto.chatHistory.ChatHistoryQueryRequest;
 import com.szh.aicodebackend.model.entity.ChatHistory;
 import com.szh.aicodebackend.model.entity.User;
+import com.szh.aicodebackend.model.vo.ChatHistoryCursorVO;
 import com.szh.aicodebackend.service.ChatHistoryService;
 import com.szh.aicodebackend.service.UserService;
 import jakarta.annotation.Resource;
@@ -52,6 +53,26 @@ public class ChatHistoryController {
         return ResultUtils.success(chatHistoryPage);
     }
 
+    /**
+     * 游标分页获取应用下的对话历史（不查询总数）
+     *
+     * @param appId 应用id
+     * @param pageSize 每页大小
+     * @param lastCreateTime 游标 - 上一页最后一条记录的创建时间
+     * @param lastId 游标 - 上一页最后一条记录的 id
+     * @return 对话历史及下一页游标
+     */
+    @GetMapping("app/{appId}/cursor")
+    public BaseResponse<ChatHistoryCursorVO> listAppChatHistoryByCursor(@PathVariable Long appId,
+                                                                        @RequestParam(defaultValue = "10") int pageSize,
+                                                                        @RequestParam(required = false) LocalDateTime lastCreateTime,
+                                                                        @RequestParam(required = false) Long lastId,
+                                                                        HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        ChatHistoryCursorVO cursorVO = chatHistoryService.listAppChatHistoryByCursor(appId, pageSize, lastCreateTime, lastId, loginUser);
+        return ResultUtils.success(cursorVO);
+    }
+
     /**
      * 管理员分页查询所有对话历史
      *
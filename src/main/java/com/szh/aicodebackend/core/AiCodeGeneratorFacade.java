@@ -1,18 +1,20 @@
 package com.szh.aicodebackend.core;
 
-import cn.hutool.json.JSONUtil;
 import com.szh.aicodebackend.ai.AiCodeGeneratorService;
 import com.szh.aicodebackend.ai.AiCodeGeneratorServiceFactory;
 import com.szh.aicodebackend.ai.model.HtmlCodeResult;
 import com.szh.aicodebackend.ai.model.MultiFileCodeResult;
 import com.szh.aicodebackend.ai.model.message.AiResponseMessage;
+import com.szh.aicodebackend.ai.model.message.StreamMessage;
 import com.szh.aicodebackend.ai.model.message.ToolExecutedMessage;
 import com.szh.aicodebackend.ai.model.message.ToolRequestMessage;
 import com.szh.aicodebackend.constant.AppConstant;
 import com.szh.aicodebackend.core.builder.VueProjectBuilder;
 import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
-import com.szh.aicodebackend.core.parser.CodeParserExecutor;
 import com.szh.aicodebackend.core.saver.CodeFileSaverExecutor;
+import com.szh.aicodebackend.core.saver.StreamingCodeFileSaver;
+import com.szh.aicodebackend.core.serving.StaticFileServer;
+import com.szh.aicodebackend.core.vfs.ProjectFileSystemManager;
 import com.szh.aicodebackend.exception.BusinessException;
 import com.szh.aicodebackend.exception.ErrorCode;
 import dev.langchain4j.model.chat.response.ChatResponse;
@@ -42,6 +44,12 @@ public class AiCodeGeneratorFacade {
     @Resource
     private VueProjectBuilder vueProjectBuilder;
 
+    @Resource
+    private ProjectFileSystemManager projectFileSystemManager;
+
+    @Resource
+    private StaticFileServer staticFileServer;
+
     /**
     * 生成代码并保存(统一入口)
     * @param userMessage 用户消息
@@ -56,17 +64,20 @@ public class AiCodeGeneratorFacade {
             throw new BusinessException(ErrorCode.PARAMS_ERROR,"应用ID不能为空");
         }
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, codeGenType);
-        return switch (codeGenType){
+        File savedDir = switch (codeGenType){
             case HTML -> {
-                HtmlCodeResult htmlCodeResult = aiCodeGeneratorService.generateHtmlCode(userMessage);
+                HtmlCodeResult htmlCodeResult = aiCodeGeneratorService.generateHtmlCode(appId, userMessage);
                 yield CodeFileSaverExecutor.executeSaver(htmlCodeResult, CodeGenTypeEnum.HTML,appId);
             }
             case MULTI_FILE -> {
-                MultiFileCodeResult multiFileCodeResult = aiCodeGeneratorService.generateMultiFileCode(userMessage);
+                MultiFileCodeResult multiFileCodeResult = aiCodeGeneratorService.generateMultiFileCode(appId, userMessage);
                 yield CodeFileSaverExecutor.executeSaver(multiFileCodeResult, CodeGenTypeEnum.MULTI_FILE,appId);
             }
             default -> throw new BusinessException(ErrorCode.PARAMS_ERROR,"不支持的代码生成类型:"+codeGenType.getValue());
         };
+        //预压缩并刷新预览缓存
+        staticFileServer.precompress(savedDir);
+        return savedDir;
     }
 
     /**
@@ -84,71 +95,89 @@ public class AiCodeGeneratorFacade {
         AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, codeGenType);
         return switch (codeGenType){
             case HTML -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
+                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(appId, userMessage);
                 yield processCodeStream(codeStream,CodeGenTypeEnum.HTML,appId);
 
             }
             case MULTI_FILE -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
+                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(appId, userMessage);
                 yield processCodeStream(codeStream,CodeGenTypeEnum.MULTI_FILE,appId);
             }
-            case VUE_PROJECT -> {
-                TokenStream tokenStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
-                yield processTokenStream(tokenStream,appId);
-            }
             default -> throw new BusinessException(ErrorCode.PARAMS_ERROR,"不支持的代码生成类型:"+codeGenType.getValue());
         };
     }
 
+    /**
+    * 生成 Vue 项目代码(流式)
+    * 直接输出类型化的消息对象，由流处理器按类型分发，JSON 只在 SSE 出口生成一次
+    * @param userMessage 用户消息
+    * @param appId 应用ID
+    */
+    public Flux<StreamMessage> generateVueProjectCodeStream(String userMessage, Long appId){
+        if (appId == null){
+            throw new BusinessException(ErrorCode.PARAMS_ERROR,"应用ID不能为空");
+        }
+        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, CodeGenTypeEnum.VUE_PROJECT);
+        TokenStream tokenStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
+        return processTokenStream(tokenStream,appId);
+    }
+
 
     private Flux<String> processCodeStream(Flux<String> codeStream , CodeGenTypeEnum codeGenType,Long appId){
-        //代码返回完成后再保存
-        StringBuilder code = new StringBuilder();
-        //拼接代码
-        return codeStream
-                .doOnNext(code::append)
-                .doOnComplete(() -> {
-                    //返回完成后保存代码
-                    try {
-                        String completeCode = code.toString();
-                        Object parserReault = CodeParserExecutor.executeParser(completeCode, codeGenType);
-                        //保存代码
-                        File fileDir = CodeFileSaverExecutor.executeSaver(parserReault, codeGenType,appId);
-                        log.info("保存代码成功,保存路径为：{}",fileDir.getAbsolutePath());
-                    } catch (Exception e) {
-                        log.error("保存失败：{}",e.getMessage());
-                    }
-                });
+        //边生成边解析，代码块闭合后立即落盘，无需缓存完整输出
+        return Flux.using(
+                () -> CodeFileSaverExecutor.createStreamingSaver(codeGenType, appId),
+                saver -> codeStream
+                        .doOnNext(saver::append)
+                        .doOnComplete(() -> {
+                            try {
+                                File fileDir = saver.finish();
+                                staticFileServer.precompress(fileDir);
+                                log.info("保存代码成功,保存路径为：{}",fileDir.getAbsolutePath());
+                            } catch (Exception e) {
+                                log.error("保存失败：{}",e.getMessage());
+                            }
+                        }),
+                StreamingCodeFileSaver::close);
     }
 
     /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用信息
+     * 将 TokenStream 转换为 Flux<StreamMessage>，并传递工具调用信息
      *
      * @param tokenStream TokenStream 对象
-     * @return Flux<String> 流式响应
+     * @return Flux<StreamMessage> 流式响应
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream,Long appId) {
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream,Long appId) {
         return Flux.create(sink -> {
             tokenStream.onPartialResponse((String partialResponse) -> {
-                        AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
-                        sink.next(JSONUtil.toJsonStr(aiResponseMessage));
+                        sink.next(new AiResponseMessage(partialResponse));
                     })
                     .onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
-                        ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                        sink.next(JSONUtil.toJsonStr(toolRequestMessage));
+                        sink.next(new ToolRequestMessage(toolExecutionRequest));
                     })
                     .onToolExecuted((ToolExecution toolExecution) -> {
-                        ToolExecutedMessage toolExecutedMessage = new ToolExecutedMessage(toolExecution);
-                        sink.next(JSONUtil.toJsonStr(toolExecutedMessage));
+                        sink.next(new ToolExecutedMessage(toolExecution));
                     })
                     .onCompleteResponse((ChatResponse response) -> {
-                        // 异步构造 Vue 项目
+                        // 工具调用的修改都在内存中，构建前先写回磁盘
+                        if (!projectFileSystemManager.flushAndRelease(appId)) {
+                            sink.error(new BusinessException(ErrorCode.SYSTEM_ERROR, "项目文件保存失败"));
+                            return;
+                        }
+                        // 异步构造 Vue 项目，生成流立即结束，构建进度通过构建状态接口获取
                         String projectPath = AppConstant.CODE_OUTPUT_ROOT_DIR + "/vue_project_" + appId;
-                        vueProjectBuilder.buildProject(projectPath);
+                        try {
+                            vueProjectBuilder.submitBuild(projectPath, VueProjectBuilder.PRIORITY_GENERATION);
+                        } catch (BusinessException e) {
+                            // 构建队列已满时跳过预构建，部署时会重新构建
+                            log.warn("跳过 Vue 项目构建：{}", e.getMessage());
+                        }
                         sink.complete();
                     })
                     .onError((Throwable error) -> {
                         error.printStackTrace();
+                        // 出错时保留已生成的文件
+                        projectFileSystemManager.flushAndRelease(appId);
                         sink.error(error);
                     })
                     .start();
@@ -0,0 +1,435 @@
+package com.szh.aicodebackend.core.archive;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.szh.aicodebackend.constant.AppConstant;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 项目下载压缩包缓存
+ * 以项目文件（路径、大小、修改时间）的指纹为键缓存压缩包，同一版本的重复下载直接发送缓存文件。
+ * 生成压缩包时各文件在多个线程中并行压缩，再按顺序写入 ZIP；图片、字体等已压缩的文件直接存储不再压缩
+ */
+@Slf4j
+@Component
+public class ProjectArchiveCache {
+
+    /**
+     * 需要忽略的目录名和文件名
+     */
+    private static final Set<String> IGNORED_NAMES = Set.of(
+            "node_modules",
+            ".git",
+            "dist",
+            "build",
+            ".DS_Store",
+            ".env",
+            "target",
+            ".mvn",
+            ".idea",
+            ".vscode"
+    );
+
+    /**
+     * 需要忽略的扩展名
+     */
+    private static final String[] IGNORED_EXTENSIONS = {".log", ".tmp", ".cache"};
+
+    /**
+     * 本身已压缩、直接存储的文件类型
+     */
+    private static final Set<String> STORED_EXTENSIONS = Set.of(
+            "png", "jpg", "jpeg", "gif", "webp", "avif", "woff", "woff2",
+            "zip", "gz", "br", "mp3", "mp4", "webm"
+    );
+
+    private static final String ARCHIVE_SUFFIX = ".zip";
+
+    private static final int METHOD_STORED = 0;
+
+    private static final int METHOD_DEFLATED = 8;
+
+    /**
+     * 通用标志位：文件名使用 UTF-8 编码
+     */
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private static final int ZIP_VERSION = 20;
+
+    private static final long MAX_ZIP32_VALUE = 0xFFFFFFFFL;
+
+    private static final int MAX_ZIP32_ENTRIES = 0xFFFF;
+
+    /**
+     * 旧版本压缩包被替代后保留的时间，命中缓存的请求可能仍要发送它（sendfile 在请求处理返回后才打开文件）
+     */
+    private static final long STALE_ARCHIVE_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * 按项目分段加锁，同一项目同时只生成一个压缩包
+     */
+    private final Object[] buildLocks = new Object[64];
+
+    private ExecutorService deflateExecutor;
+
+    private int parallelism;
+
+    public ProjectArchiveCache() {
+        for (int i = 0; i < buildLocks.length; i++) {
+            buildLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+        deflateExecutor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("zip-deflate-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        deflateExecutor.shutdownNow();
+    }
+
+    /**
+     * 获取项目当前版本的压缩包，不存在时生成
+     *
+     * @param projectDir 项目目录
+     * @return 压缩包
+     */
+    public ProjectArchive getArchive(File projectDir) throws IOException {
+        Path root = projectDir.toPath().toAbsolutePath().normalize();
+        List<ArchiveItem> items = listItems(root);
+        String fingerprint = fingerprint(items);
+        String projectName = root.getFileName().toString();
+        Path archive = Paths.get(AppConstant.DOWNLOAD_CACHE_DIR, projectName + "-" + fingerprint + ARCHIVE_SUFFIX);
+        if (Files.isRegularFile(archive)) {
+            log.info("命中项目压缩包缓存：{}", archive.getFileName());
+            return new ProjectArchive(archive, fingerprint);
+        }
+        synchronized (buildLocks[Math.floorMod(projectName.hashCode(), buildLocks.length)]) {
+            if (!Files.isRegularFile(archive)) {
+                long start = System.currentTimeMillis();
+                build(root, items, archive);
+                removeStaleArchives(projectName, archive);
+                log.info("项目压缩包已生成：{}，{} 个文件，{} 字节，耗时 {} ms", archive.getFileName(),
+                        items.size(), Files.size(archive), System.currentTimeMillis() - start);
+            }
+        }
+        return new ProjectArchive(archive, fingerprint);
+    }
+
+    /**
+     * 列出需要打包的文件，按路径排序
+     */
+    private List<ArchiveItem> listItems(Path root) throws IOException {
+        List<ArchiveItem> items = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root) && isIgnored(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && !isIgnored(file.getFileName().toString())) {
+                    String name = root.relativize(file).toString().replace('\\', '/');
+                    items.add(new ArchiveItem(name, file, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        items.sort(Comparator.comparing(ArchiveItem::name));
+        return items;
+    }
+
+    private static boolean isIgnored(String fileName) {
+        if (IGNORED_NAMES.contains(fileName)) {
+            return true;
+        }
+        for (String extension : IGNORED_EXTENSIONS) {
+            if (fileName.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 项目指纹：任一文件的路径、大小或修改时间变化都会改变指纹
+     */
+    private static String fingerprint(List<ArchiveItem> items) {
+        MessageDigest digest = DigestUtil.digester("SHA-256").getDigest();
+        for (ArchiveItem item : items) {
+            digest.update((item.name() + '\0' + item.size() + '\0' + item.lastModified() + '\n')
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return HexUtil.encodeHexStr(digest.digest()).substring(0, 32);
+    }
+
+    /**
+     * 生成压缩包：并行压缩，按顺序写入，同时在途的文件数有上限以控制内存
+     */
+    private void build(Path root, List<ArchiveItem> items, Path archive) throws IOException {
+        if (items.size() > MAX_ZIP32_ENTRIES) {
+            throw new IOException("项目文件过多，无法打包：" + items.size());
+        }
+        Files.createDirectories(archive.getParent());
+        Path temp = Files.createTempFile(archive.getParent(), "." + archive.getFileName(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                ZipWriter writer = new ZipWriter(out);
+                Deque<Future<CompressedEntry>> inFlight = new ArrayDeque<>();
+                for (ArchiveItem item : items) {
+                    inFlight.addLast(deflateExecutor.submit(() -> compress(item)));
+                    if (inFlight.size() >= parallelism * 2) {
+                        writer.writeEntry(await(inFlight.pollFirst()));
+                    }
+                }
+                while (!inFlight.isEmpty()) {
+                    writer.writeEntry(await(inFlight.pollFirst()));
+                }
+                writer.finish();
+            }
+            try {
+                Files.move(temp, archive, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static CompressedEntry await(Future<CompressedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("打包被中断", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * 压缩单个文件，已压缩格式或压缩无收益时直接存储
+     */
+    private static CompressedEntry compress(ArchiveItem item) throws IOException {
+        byte[] raw = Files.readAllBytes(item.path());
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        String name = item.name();
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+        if (raw.length == 0 || STORED_EXTENSIONS.contains(extension)) {
+            return new CompressedEntry(item, METHOD_STORED, crc.getValue(), raw.length, raw);
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[16 * 1024];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                compressed.write(buffer, 0, n);
+            }
+            if (compressed.size() >= raw.length) {
+                return new CompressedEntry(item, METHOD_STORED, crc.getValue(), raw.length, raw);
+            }
+            return new CompressedEntry(item, METHOD_DEFLATED, crc.getValue(), raw.length, compressed.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 删除该项目旧版本的压缩包
+     * 压缩包在其后一个版本生成（即被替代）超过宽限时间后才删除，避免正在下载的请求找不到文件
+     */
+    private void removeStaleArchives(String projectName, Path current) {
+        List<Path> archives = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(current.getParent(), projectName + "-*" + ARCHIVE_SUFFIX)) {
+            stream.forEach(archives::add);
+        } catch (IOException e) {
+            log.warn("清理旧的项目压缩包失败：{}，错误：{}", projectName, e.getMessage());
+            return;
+        }
+        // 从新到旧排列，当前版本在最前
+        archives.sort(Comparator.comparingLong(ProjectArchiveCache::lastModifiedOf).reversed());
+        archives.remove(current);
+        archives.add(0, current);
+        long deadline = System.currentTimeMillis() - STALE_ARCHIVE_GRACE_MILLIS;
+        for (int i = 1; i < archives.size(); i++) {
+            // 后一个版本的生成时间即为该版本被替代的时间
+            if (lastModifiedOf(archives.get(i - 1)) < deadline) {
+                try {
+                    Files.deleteIfExists(archives.get(i));
+                } catch (IOException e) {
+                    log.warn("删除旧的项目压缩包失败：{}，错误：{}", archives.get(i).getFileName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static long lastModifiedOf(Path archive) {
+        try {
+            return Files.getLastModifiedTime(archive).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 缓存的压缩包
+     *
+     * @param path        文件路径
+     * @param fingerprint 项目指纹，可作为 ETag
+     */
+    public record ProjectArchive(Path path, String fingerprint) {
+    }
+
+    private record ArchiveItem(String name, Path path, long size, long lastModified) {
+    }
+
+    private record CompressedEntry(ArchiveItem item, int method, long crc, long size, byte[] data) {
+    }
+
+    /**
+     * 顺序写出 ZIP 结构（本地文件头 + 数据，最后写中央目录），条目数据已提前压缩好
+     */
+    private static final class ZipWriter {
+
+        private final OutputStream out;
+
+        private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+
+        private long offset;
+
+        private int entryCount;
+
+        private ZipWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeEntry(CompressedEntry entry) throws IOException {
+            byte[] name = entry.item().name().getBytes(StandardCharsets.UTF_8);
+            long dosTime = toDosTime(entry.item().lastModified());
+            if (offset > MAX_ZIP32_VALUE || entry.size() > MAX_ZIP32_VALUE) {
+                throw new IOException("项目过大，无法打包");
+            }
+            ByteBuffer local = ByteBuffer.allocate(30 + name.length).order(ByteOrder.LITTLE_ENDIAN);
+            local.putInt(0x04034b50)
+                    .putShort((short) ZIP_VERSION)
+                    .putShort((short) FLAG_UTF8)
+                    .putShort((short) entry.method())
+                    .putInt((int) dosTime)
+                    .putInt((int) entry.crc())
+                    .putInt(entry.data().length)
+                    .putInt((int) entry.size())
+                    .putShort((short) name.length)
+                    .putShort((short) 0)
+                    .put(name);
+            ByteBuffer central = ByteBuffer.allocate(46 + name.length).order(ByteOrder.LITTLE_ENDIAN);
+            central.putInt(0x02014b50)
+                    .putShort((short) ZIP_VERSION)
+                    .putShort((short) ZIP_VERSION)
+                    .putShort((short) FLAG_UTF8)
+                    .putShort((short) entry.method())
+                    .putInt((int) dosTime)
+                    .putInt((int) entry.crc())
+                    .putInt(entry.data().length)
+                    .putInt((int) entry.size())
+                    .putShort((short) name.length)
+                    // 扩展字段、注释长度、磁盘号、内部属性
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    // 外部属性
+                    .putInt(0)
+                    .putInt((int) offset)
+                    .put(name);
+            out.write(local.array());
+            out.write(entry.data());
+            centralDirectory.write(central.array());
+            offset += local.capacity() + entry.data().length;
+            entryCount++;
+        }
+
+        void finish() throws IOException {
+            if (offset > MAX_ZIP32_VALUE) {
+                throw new IOException("项目过大，无法打包");
+            }
+            ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+            end.putInt(0x06054b50)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) entryCount)
+                    .putShort((short) entryCount)
+                    .putInt(centralDirectory.size())
+                    .putInt((int) offset)
+                    .putShort((short) 0);
+            centralDirectory.writeTo(out);
+            out.write(end.array());
+        }
+
+        /**
+         * 转换为 DOS 日期时间（高 16 位日期，低 16 位时间，秒精度为 2）
+         */
+        private static long toDosTime(long millis) {
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+            if (time.getYear() < 1980) {
+                return (1 << 21) | (1 << 16);
+            }
+            return ((long) (time.getYear() - 1980) << 25)
+                    | ((long) time.getMonthValue() << 21)
+                    | ((long) time.getDayOfMonth() << 16)
+                    | ((long) time.getHour() << 11)
+                    | ((long) time.getMinute() << 5)
+                    | (time.getSecond() >> 1);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.szh.aicodebackend.core.builder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单次构建的输出日志
+ * 只保留最近 maxLines 行（环形缓冲），新订阅者先收到缓冲中的日志，再实时收到后续输出
+ */
+public class BuildLog {
+
+    private final int maxLines;
+
+    private final ArrayDeque<String> lines;
+
+    private final Sinks.Many<String> sink;
+
+    public BuildLog(int maxLines) {
+        this.maxLines = Math.max(1, maxLines);
+        this.lines = new ArrayDeque<>(this.maxLines);
+        this.sink = Sinks.many().replay().limit(this.maxLines);
+    }
+
+    /**
+     * 追加一行日志
+     */
+    public synchronized void append(String line) {
+        if (lines.size() == maxLines) {
+            lines.pollFirst();
+        }
+        lines.addLast(line);
+        sink.tryEmitNext(line);
+    }
+
+    /**
+     * 构建结束，结束实时订阅
+     */
+    public synchronized void complete() {
+        sink.tryEmitComplete();
+    }
+
+    /**
+     * 当前缓冲中的日志
+     */
+    public synchronized List<String> snapshot() {
+        return new ArrayList<>(lines);
+    }
+
+    /**
+     * 日志流，构建结束后完成
+     */
+    public Flux<String> stream() {
+        return sink.asFlux();
+    }
+}
@@ -0,0 +1,175 @@
+package com.szh.aicodebackend.core.builder;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.szh.aicodebackend.constant.AppConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+
+/**
+ * 共享 npm 依赖仓库
+ * 以 package.json（及 package-lock.json）的内容哈希为键，每种依赖组合只安装一次 node_modules，
+ * 各项目通过符号链接复用，避免每个项目各自下载、解压一份依赖
+ */
+@Slf4j
+@Component
+public class NpmDependencyStore {
+
+    /**
+     * 参与哈希的依赖清单文件
+     */
+    private static final String[] MANIFEST_FILES = {"package.json", "package-lock.json"};
+
+    /**
+     * 安装完成标记，避免复用安装到一半的目录
+     */
+    private static final String INSTALLED_MARKER = ".installed";
+
+    private static final String NODE_MODULES = "node_modules";
+
+    /**
+     * 按哈希分段加锁，同一依赖组合同时只有一个安装进程
+     */
+    private final Object[] installLocks = new Object[64];
+
+    public NpmDependencyStore() {
+        for (int i = 0; i < installLocks.length; i++) {
+            installLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 计算项目依赖清单的哈希
+     *
+     * @param projectDir 项目目录
+     * @return 十六进制哈希
+     */
+    public String hashDependencies(File projectDir) throws IOException {
+        MessageDigest digest = DigestUtil.digester("SHA-256").getDigest();
+        for (String manifest : MANIFEST_FILES) {
+            Path file = projectDir.toPath().resolve(manifest);
+            if (Files.isRegularFile(file)) {
+                digest.update(manifest.getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(file));
+            }
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 依赖组合对应的仓库目录
+     */
+    public Path getStoreDir(String hash) {
+        return Paths.get(AppConstant.NPM_STORE_DIR, hash);
+    }
+
+    /**
+     * npm 下载缓存目录，所有依赖组合共用
+     */
+    public Path getCacheDir() {
+        return Paths.get(AppConstant.NPM_STORE_DIR, "_cache");
+    }
+
+    public Object lockFor(String hash) {
+        return installLocks[Math.floorMod(hash.hashCode(), installLocks.length)];
+    }
+
+    public boolean isInstalled(Path storeDir) {
+        return Files.exists(storeDir.resolve(INSTALLED_MARKER)) && Files.isDirectory(storeDir.resolve(NODE_MODULES));
+    }
+
+    /**
+     * 将依赖清单复制到仓库目录，准备安装
+     */
+    public void prepare(File projectDir, Path storeDir) throws IOException {
+        Files.createDirectories(storeDir);
+        for (String manifest : MANIFEST_FILES) {
+            Path source = projectDir.toPath().resolve(manifest);
+            if (Files.isRegularFile(source)) {
+                Files.copy(source, storeDir.resolve(manifest), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    public void markInstalled(Path storeDir) throws IOException {
+        Files.writeString(storeDir.resolve(INSTALLED_MARKER), String.valueOf(System.currentTimeMillis()));
+    }
+
+    /**
+     * 将项目的 node_modules 链接到仓库
+     *
+     * @return 是否链接成功
+     */
+    public boolean link(File projectDir, Path storeDir) {
+        Path link = projectDir.toPath().resolve(NODE_MODULES);
+        Path target = storeDir.resolve(NODE_MODULES).toAbsolutePath();
+        try {
+            if (Files.isSymbolicLink(link)) {
+                if (Files.readSymbolicLink(link).equals(target)) {
+                    return true;
+                }
+                Files.delete(link);
+            } else if (Files.exists(link)) {
+                // 之前在项目内安装过依赖，改为共享
+                FileUtil.del(link);
+            }
+            Files.createSymbolicLink(link, target);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("链接共享依赖失败：{}，错误：{}", link, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 读取项目内安装依赖时记录的依赖哈希，node_modules 为共享链接或不存在时返回 null
+     */
+    public String readLocalInstallHash(File projectDir) {
+        Path nodeModules = projectDir.toPath().resolve(NODE_MODULES);
+        Path marker = nodeModules.resolve(INSTALLED_MARKER);
+        if (Files.isSymbolicLink(nodeModules) || !Files.isRegularFile(marker)) {
+            return null;
+        }
+        try {
+            return Files.readString(marker);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 项目内安装依赖成功后记录依赖哈希
+     */
+    public void writeLocalInstallHash(File projectDir, String hash) {
+        Path marker = projectDir.toPath().resolve(NODE_MODULES).resolve(INSTALLED_MARKER);
+        try {
+            Files.writeString(marker, hash);
+        } catch (IOException e) {
+            log.warn("记录依赖哈希失败：{}，错误：{}", marker, e.getMessage());
+        }
+    }
+
+    /**
+     * 移除指向仓库的链接，改为项目内安装前调用，避免 npm 写入共享目录
+     */
+    public void unlink(File projectDir) {
+        Path link = projectDir.toPath().resolve(NODE_MODULES);
+        try {
+            if (Files.isSymbolicLink(link)) {
+                Files.delete(link);
+            }
+        } catch (IOException e) {
+            log.warn("移除共享依赖链接失败：{}，错误：{}", link, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.szh.aicodebackend.core.builder;
+
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.szh.aicodebackend.constant.AppConstant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Vue 项目构建缓存
+ * 对源码（不含 node_modules、dist）计算内容指纹，与最近一次成功构建的指纹一致且 dist 仍在时直接复用构建产物
+ */
+@Slf4j
+@Component
+public class VueBuildCache {
+
+    /**
+     * 不参与指纹计算的目录
+     */
+    private static final Set<String> EXCLUDED_DIRS = Set.of("node_modules", "dist", ".git");
+
+    /**
+     * 计算项目源码指纹：按相对路径排序后依次摘要路径和内容
+     *
+     * @param projectDir 项目目录
+     * @return 十六进制指纹
+     */
+    public String fingerprint(File projectDir) throws IOException {
+        Path root = projectDir.toPath();
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root) && EXCLUDED_DIRS.contains(dir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    files.add(root.relativize(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        MessageDigest digest = DigestUtil.digester("SHA-256").getDigest();
+        for (Path relative : files) {
+            digest.update(relative.toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(root.resolve(relative)));
+            digest.update((byte) 0);
+        }
+        return HexUtil.encodeHexStr(digest.digest());
+    }
+
+    /**
+     * 构建产物是否与当前源码一致
+     *
+     * @param projectDir  项目目录
+     * @param fingerprint 当前源码指纹
+     */
+    public boolean isUpToDate(File projectDir, String fingerprint) {
+        File distDir = new File(projectDir, "dist");
+        if (!distDir.isDirectory()) {
+            return false;
+        }
+        try {
+            Path recordFile = recordFile(projectDir);
+            return Files.exists(recordFile) && fingerprint.equals(Files.readString(recordFile));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 记录成功构建时的源码指纹
+     */
+    public void record(File projectDir, String fingerprint) {
+        try {
+            Path recordFile = recordFile(projectDir);
+            Files.createDirectories(recordFile.getParent());
+            Files.writeString(recordFile, fingerprint);
+        } catch (IOException e) {
+            log.warn("记录构建指纹失败：{}，错误：{}", projectDir.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 构建失败时清除记录，避免复用失败前残留的产物
+     */
+    public void invalidate(File projectDir) {
+        try {
+            Files.deleteIfExists(recordFile(projectDir));
+        } catch (IOException e) {
+            log.warn("清除构建指纹失败：{}，错误：{}", projectDir.getName(), e.getMessage());
+        }
+    }
+
+    private Path recordFile(File projectDir) {
+        return Paths.get(AppConstant.VUE_BUILD_CACHE_DIR, projectDir.getName());
+    }
+}
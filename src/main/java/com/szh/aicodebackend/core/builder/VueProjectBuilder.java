@@ -1,74 +1,429 @@
 package com.szh.aicodebackend.core.builder;
 
-import cn.hutool.core.util.RuntimeUtil;
+import cn.hutool.core.bean.BeanUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.szh.aicodebackend.config.VueBuildConfig;
+import com.szh.aicodebackend.core.serving.StaticFileServer;
+import com.szh.aicodebackend.exception.BusinessException;
+import com.szh.aicodebackend.exception.ErrorCode;
+import com.szh.aicodebackend.model.enums.VueBuildStatusEnum;
+import com.szh.aicodebackend.model.vo.VueBuildStatusVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 /**
  * 构建 Vue 项目
+ * 构建任务进入优先级队列，由固定数量的工作线程执行，避免并发部署时无限制地启动 npm 进程；
+ * 同一项目正在构建时，新任务等其结束后再入队，不占用工作线程；
+ * 依赖按 package.json 哈希共享安装，项目只链接 node_modules；源码未变化时直接复用已有的 dist。
+ * 构建状态的每次变化都会推送给订阅者，调用方无需同步等待构建结束；
+ * npm 输出由虚拟线程持续读取到每次构建的日志缓冲中，避免管道写满阻塞进程，并据此估算构建进度
  */
 @Slf4j
 @Component
 public class VueProjectBuilder {
 
     /**
-     * 构建 Vue 项目
+     * 部署触发的构建，用户在等待结果，优先执行
+     */
+    public static final int PRIORITY_DEPLOY = 0;
+
+    /**
+     * 生成结束后的预构建
+     */
+    public static final int PRIORITY_GENERATION = 10;
+
+    /**
+     * 终端颜色控制符
+     */
+    private static final Pattern ANSI_ESCAPE = Pattern.compile("\u001B\\[[;\\d]*[A-Za-z]");
+
+    @Resource
+    private VueBuildConfig vueBuildConfig;
+
+    @Resource
+    private NpmDependencyStore npmDependencyStore;
+
+    @Resource
+    private VueBuildCache vueBuildCache;
+
+    @Resource
+    private StaticFileServer staticFileServer;
+
+    private ThreadPoolExecutor buildExecutor;
+
+    /**
+     * 项目目录名 -> 尚未开始的构建任务，同一项目重复提交时合并
+     */
+    private final Map<String, BuildTask> queuedTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 项目目录名 -> 最近提交且未结束的构建任务，用于订阅状态变化
+     */
+    private final Map<String, BuildTask> activeTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 项目目录名 -> 最近一次构建日志
+     */
+    private final Cache<String, BuildLog> buildLogCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    /**
+     * 项目目录名 -> 最近一次构建状态
+     */
+    private final Cache<String, VueBuildStatusVO> buildStatusCache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    /**
+     * 项目目录名 -> 正在执行的构建任务，同一项目目录不会同时执行两次构建
+     */
+    private final Map<String, BuildTask> runningTasks = new ConcurrentHashMap<>();
+
+    /**
+     * 尚未开始执行的任务名额（含等待同项目构建结束的任务），提交前获取
+     */
+    private Semaphore queueSlots;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        queueSlots = new Semaphore(Math.max(1, vueBuildConfig.getQueueCapacity()));
+        int workerCount = Math.max(1, vueBuildConfig.getWorkerCount());
+        buildExecutor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(),
+                Thread.ofPlatform().name("vue-build-", 0).daemon().factory());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        buildExecutor.shutdownNow();
+    }
+
+    /**
+     * 构建 Vue 项目（部署优先级，同步等待结果，最长等待 deployWaitTimeoutSeconds）
      *
      * @param projectPath 项目根目录路径
      * @return 是否构建成功
      */
     public boolean buildProject(String projectPath) {
+        CompletableFuture<Boolean> future = submitBuild(projectPath, PRIORITY_DEPLOY);
+        try {
+            return future.get(vueBuildConfig.getDeployWaitTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("等待构建结果超时（{}秒）：{}", vueBuildConfig.getDeployWaitTimeoutSeconds(), projectPath);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "构建耗时过长，构建仍在进行，请稍后重新部署");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "等待构建结果被中断");
+        } catch (ExecutionException e) {
+            log.error("构建 Vue 项目异常：{}", projectPath, e.getCause());
+            return false;
+        }
+    }
+
+    /**
+     * 提交构建任务
+     * 同一项目已在排队时直接复用该任务（必要时提升优先级）；队列已满时拒绝
+     *
+     * @param projectPath 项目根目录路径
+     * @param priority    优先级，数值越小越先执行
+     * @return 构建结果
+     */
+    public CompletableFuture<Boolean> submitBuild(String projectPath, int priority) {
         File projectDir = new File(projectPath);
+        String projectName = projectDir.getName();
+        BuildTask queued = queuedTasks.get(projectName);
+        if (queued != null) {
+            return mergeInto(queued, priority);
+        }
+        // 入队前先占用名额，并发提交也不会超过上限
+        if (!queueSlots.tryAcquire()) {
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "构建任务过多，请稍后重试");
+        }
+        VueBuildStatusVO status = new VueBuildStatusVO();
+        status.setProjectName(projectName);
+        status.setStatus(VueBuildStatusEnum.QUEUED.getValue());
+        status.setQueuedTime(LocalDateTime.now());
+        BuildTask task = new BuildTask(projectDir, priority, sequence.incrementAndGet(), status,
+                new BuildLog(vueBuildConfig.getLogMaxLines()));
+        BuildTask existing = queuedTasks.putIfAbsent(projectName, task);
+        if (existing != null) {
+            queueSlots.release();
+            return mergeInto(existing, priority);
+        }
+        buildStatusCache.put(projectName, status);
+        buildLogCache.put(projectName, task.buildLog);
+        activeTasks.put(projectName, task);
+        task.publish();
+        dispatch(task);
+        return task.future;
+    }
+
+    /**
+     * 任务入队；同一项目正在构建时，等其结束后再入队
+     */
+    private void dispatch(BuildTask task) {
+        BuildTask running = runningTasks.get(task.projectDir.getName());
+        if (running != null && running != task) {
+            running.future.whenComplete((success, e) -> dispatch(task));
+            return;
+        }
+        try {
+            buildExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // 应用关闭中
+            queuedTasks.remove(task.projectDir.getName(), task);
+            activeTasks.remove(task.projectDir.getName(), task);
+            queueSlots.release();
+            task.future.complete(false);
+        }
+    }
+
+    /**
+     * 合并到尚未开始的任务，新提交的优先级更高时提升优先级（在队列中时重新入队）
+     */
+    private CompletableFuture<Boolean> mergeInto(BuildTask queued, int priority) {
+        synchronized (queued) {
+            if (priority < queued.priority) {
+                boolean inQueue = buildExecutor.getQueue().remove(queued);
+                queued.priority = priority;
+                if (inQueue) {
+                    buildExecutor.getQueue().offer(queued);
+                }
+            }
+        }
+        return queued.future;
+    }
+
+    /**
+     * 获取项目最近一次构建状态
+     *
+     * @param projectName 项目目录名
+     * @return 构建状态，没有构建记录时返回 null
+     */
+    public VueBuildStatusVO getBuildStatus(String projectName) {
+        VueBuildStatusVO status = buildStatusCache.getIfPresent(projectName);
+        if (status == null) {
+            return null;
+        }
+        BuildTask queued = queuedTasks.get(projectName);
+        if (queued != null) {
+            int position = 1;
+            for (Runnable runnable : buildExecutor.getQueue()) {
+                if (runnable instanceof BuildTask other && other.compareTo(queued) < 0) {
+                    position++;
+                }
+            }
+            status.setQueuePosition(position);
+        }
+        return status;
+    }
+
+    /**
+     * 订阅项目构建状态变化
+     * 有未结束的构建时推送其后续每次状态变化，构建结束后完成；否则只返回最近一次构建状态
+     *
+     * @param projectName 项目目录名
+     * @return 构建状态流
+     */
+    public Flux<VueBuildStatusVO> watchBuildStatus(String projectName) {
+        BuildTask task = activeTasks.get(projectName);
+        if (task == null) {
+            return Flux.justOrEmpty(getBuildStatus(projectName));
+        }
+        return task.updates.asFlux();
+    }
+
+    /**
+     * 获取项目最近一次构建的日志
+     *
+     * @param projectName 项目目录名
+     * @return 日志行，没有构建记录时返回 null
+     */
+    public List<String> getBuildLog(String projectName) {
+        BuildLog buildLog = buildLogCache.getIfPresent(projectName);
+        return buildLog == null ? null : buildLog.snapshot();
+    }
+
+    /**
+     * 订阅项目最近一次构建的日志，先返回已缓冲的日志，构建进行中时继续推送新输出
+     *
+     * @param projectName 项目目录名
+     * @return 日志流
+     */
+    public Flux<String> watchBuildLog(String projectName) {
+        BuildLog buildLog = buildLogCache.getIfPresent(projectName);
+        return buildLog == null ? Flux.empty() : buildLog.stream();
+    }
+
+    /**
+     * 执行构建
+     */
+    private boolean doBuild(BuildTask task) {
+        File projectDir = task.projectDir;
+        VueBuildStatusVO status = task.status;
+        String projectPath = projectDir.getAbsolutePath();
         if (!projectDir.exists() || !projectDir.isDirectory()) {
             log.error("项目目录不存在：{}", projectPath);
+            status.setMessage("项目目录不存在");
             return false;
         }
         // 检查是否有 package.json 文件
         File packageJsonFile = new File(projectDir, "package.json");
         if (!packageJsonFile.exists()) {
             log.error("项目目录中没有 package.json 文件：{}", projectPath);
+            status.setMessage("项目中没有 package.json 文件");
             return false;
         }
+        // 源码与上次成功构建一致时复用 dist
+        String fingerprint = null;
+        try {
+            fingerprint = vueBuildCache.fingerprint(projectDir);
+        } catch (IOException e) {
+            log.warn("计算构建指纹失败：{}，错误：{}", projectPath, e.getMessage());
+        }
+        if (fingerprint != null && vueBuildCache.isUpToDate(projectDir, fingerprint)) {
+            log.info("源码未变化，复用已有构建产物：{}", projectPath);
+            status.setCacheHit(true);
+            return true;
+        }
+        vueBuildCache.invalidate(projectDir);
         log.info("开始构建 Vue 项目：{}", projectPath);
-        // 执行 npm install
-        if (!executeNpmInstall(projectDir)) {
+        // 安装依赖
+        task.updateStatus(VueBuildStatusEnum.INSTALLING);
+        if (!installDependencies(task)) {
             log.error("npm install 执行失败：{}", projectPath);
+            status.setMessage("依赖安装失败");
             return false;
         }
         // 执行 npm run build
-        if (!executeNpmBuild(projectDir)) {
+        task.updateStatus(VueBuildStatusEnum.BUILDING);
+        if (!executeNpmBuild(task)) {
             log.error("npm run build 执行失败：{}", projectPath);
+            status.setMessage("项目构建失败");
             return false;
         }
         // 验证 dist 目录是否生成
         File distDir = new File(projectDir, "dist");
         if (!distDir.exists() || !distDir.isDirectory()) {
             log.error("构建完成但 dist 目录未生成：{}", projectPath);
+            status.setMessage("构建完成但未生成 dist 目录");
             return false;
         }
+        if (fingerprint != null) {
+            vueBuildCache.record(projectDir, fingerprint);
+        }
+        // 预览直接访问 dist，构建完成后生成预压缩副本
+        staticFileServer.precompress(distDir);
         log.info("Vue 项目构建成功，dist 目录：{}", projectPath);
         return true;
     }
 
+    /**
+     * 安装依赖：优先链接共享依赖，不可用时在项目内安装
+     */
+    private boolean installDependencies(BuildTask task) {
+        File projectDir = task.projectDir;
+        String hash = null;
+        try {
+            hash = npmDependencyStore.hashDependencies(projectDir);
+        } catch (IOException e) {
+            log.warn("计算依赖哈希失败：{}", e.getMessage());
+        }
+        if (hash != null && vueBuildConfig.isSharedDependencies()) {
+            try {
+                if (installSharedDependencies(task, hash)) {
+                    return true;
+                }
+            } catch (IOException e) {
+                log.warn("共享依赖安装失败：{}", e.getMessage());
+            }
+            log.warn("共享依赖不可用，改为项目内安装：{}", projectDir.getAbsolutePath());
+            npmDependencyStore.unlink(projectDir);
+        }
+        // 依赖清单与上次项目内安装时一致，跳过 npm install
+        if (hash != null && hash.equals(npmDependencyStore.readLocalInstallHash(projectDir))) {
+            log.info("依赖未变化，跳过 npm install：{}", projectDir.getAbsolutePath());
+            return true;
+        }
+        boolean success = executeNpmInstall(task);
+        if (success && hash != null) {
+            npmDependencyStore.writeLocalInstallHash(projectDir, hash);
+        }
+        return success;
+    }
+
+    /**
+     * 同一依赖组合只安装一次，之后的项目直接链接
+     */
+    private boolean installSharedDependencies(BuildTask task, String hash) throws IOException {
+        File projectDir = task.projectDir;
+        Path storeDir = npmDependencyStore.getStoreDir(hash);
+        synchronized (npmDependencyStore.lockFor(hash)) {
+            if (!npmDependencyStore.isInstalled(storeDir)) {
+                npmDependencyStore.prepare(projectDir, storeDir);
+                log.info("安装共享依赖：{}", storeDir);
+                // 优先使用本地缓存，减少网络下载
+                List<String> command = List.of(buildCommand("npm"), "install", "--prefer-offline", "--no-audit",
+                        "--no-fund", "--cache", npmDependencyStore.getCacheDir().toAbsolutePath().toString());
+                if (!executeCommand(storeDir.toFile(), command, vueBuildConfig.getInstallTimeoutSeconds(), task)) {
+                    return false;
+                }
+                npmDependencyStore.markInstalled(storeDir);
+            }
+        }
+        return npmDependencyStore.link(projectDir, storeDir);
+    }
+
     /**
      * 执行 npm install 命令
      */
-    private boolean executeNpmInstall(File projectDir) {
+    private boolean executeNpmInstall(BuildTask task) {
         log.info("执行 npm install...");
-        String command = String.format("%s install", buildCommand("npm"));
-        return executeCommand(projectDir, command, 300); // 5分钟超时
+        List<String> command = List.of(buildCommand("npm"), "install");
+        return executeCommand(task.projectDir, command, vueBuildConfig.getInstallTimeoutSeconds(), task);
     }
 
     /**
      * 执行 npm run build 命令
      */
-    private boolean executeNpmBuild(File projectDir) {
+    private boolean executeNpmBuild(BuildTask task) {
         log.info("执行 npm run build...");
-        String command = String.format("%s run build", buildCommand("npm"));
-        return executeCommand(projectDir, command, 180); // 3分钟超时
+        List<String> command = List.of(buildCommand("npm"), "run", "build");
+        return executeCommand(task.projectDir, command, vueBuildConfig.getBuildTimeoutSeconds(), task);
     }
 
     /**
@@ -97,37 +452,197 @@ public class VueProjectBuilder {
      * 执行命令
      *
      * @param workingDir     工作目录
-     * @param command        命令字符串
+     * @param command        命令及参数（参数中可以包含空格）
      * @param timeoutSeconds 超时时间（秒）
+     * @param task           所属构建任务，接收命令输出
      * @return 是否执行成功
      */
-    private boolean executeCommand(File workingDir, String command, int timeoutSeconds) {
+    private boolean executeCommand(File workingDir, List<String> command, int timeoutSeconds, BuildTask task) {
+        String commandLine = String.join(" ", command);
         try {
-            log.info("在目录 {} 中执行命令: {}", workingDir.getAbsolutePath(), command);
-            Process process = RuntimeUtil.exec(
-                    null,
-                    workingDir,
-                    command.split("\\s+") // 命令分割为数组
-            );
+            log.info("在目录 {} 中执行命令: {}", workingDir.getAbsolutePath(), commandLine);
+            task.buildLog.append("> " + commandLine);
+            // 合并标准错误到标准输出，只需一个读取线程
+            Process process = new ProcessBuilder(command)
+                    .directory(workingDir)
+                    .redirectErrorStream(true)
+                    .start();
+            Thread pump = Thread.ofVirtual().name("vue-build-log").start(() -> pumpOutput(process, task));
             // 等待进程完成，设置超时
             boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
             if (!finished) {
                 log.error("命令执行超时（{}秒），强制终止进程", timeoutSeconds);
+                task.buildLog.append("命令执行超时（" + timeoutSeconds + "秒），已终止");
+                // npm 启动的 node / vite / esbuild 子进程会继续运行并占用输出管道，需要一并终止
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
                 process.destroyForcibly();
+                pump.join(TimeUnit.SECONDS.toMillis(5));
                 return false;
             }
+            // 进程退出后输出很快读完，等待读取线程收尾
+            pump.join(TimeUnit.SECONDS.toMillis(5));
             int exitCode = process.exitValue();
             if (exitCode == 0) {
-                log.info("命令执行成功: {}", command);
+                log.info("命令执行成功: {}", commandLine);
                 return true;
             } else {
                 log.error("命令执行失败，退出码: {}", exitCode);
                 return false;
             }
         } catch (Exception e) {
-            log.error("执行命令失败: {}, 错误信息: {}", command, e.getMessage());
+            log.error("执行命令失败: {}, 错误信息: {}", commandLine, e.getMessage());
             return false;
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * 持续读取进程输出写入构建日志，直到进程关闭输出
+     */
+    private void pumpOutput(Process process, BuildTask task) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = ANSI_ESCAPE.matcher(line).replaceAll("");
+                if (line.isBlank()) {
+                    continue;
+                }
+                task.buildLog.append(line);
+                task.updateProgress(estimateProgress(line));
+            }
+        } catch (IOException e) {
+            log.debug("读取构建输出结束：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 根据 npm / vite 的输出估算构建进度，无法判断时返回 -1
+     * 依赖安装占 0-50，构建占 50-100
+     */
+    static int estimateProgress(String line) {
+        if (line.startsWith("added ") || line.startsWith("up to date") || line.startsWith("changed ")) {
+            return 45;
+        }
+        if (line.startsWith("vite ") && line.contains("building for production")) {
+            return 55;
+        }
+        if (line.startsWith("transforming")) {
+            return 65;
+        }
+        if (line.contains("modules transformed")) {
+            return 80;
+        }
+        if (line.startsWith("rendering chunks")) {
+            return 85;
+        }
+        if (line.startsWith("computing gzip size")) {
+            return 90;
+        }
+        if (line.contains("built in")) {
+            return 98;
+        }
+        return -1;
+    }
+
+    /**
+     * 构建任务，按优先级、提交顺序排序
+     */
+    private class BuildTask implements Runnable, Comparable<BuildTask> {
+
+        private final File projectDir;
+
+        private final long seq;
+
+        private final VueBuildStatusVO status;
+
+        private final BuildLog buildLog;
+
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        /**
+         * 状态快照流，新订阅者先收到最近一次状态
+         */
+        private final Sinks.Many<VueBuildStatusVO> updates = Sinks.many().replay().latest();
+
+        /**
+         * 只在任务不在执行器队列中时修改
+         */
+        private volatile int priority;
+
+        private BuildTask(File projectDir, int priority, long seq, VueBuildStatusVO status, BuildLog buildLog) {
+            this.projectDir = projectDir;
+            this.priority = priority;
+            this.seq = seq;
+            this.status = status;
+            this.buildLog = buildLog;
+        }
+
+        @Override
+        public void run() {
+            String projectName = projectDir.getName();
+            // 入队后同一项目的另一任务才开始执行（提交与开始执行之间的竞争），不阻塞工作线程，等其结束后再入队
+            if (runningTasks.putIfAbsent(projectName, this) != null) {
+                dispatch(this);
+                return;
+            }
+            // 开始执行后不再合并新的提交，期间的修改需要重新构建
+            queuedTasks.remove(projectName, this);
+            queueSlots.release();
+            status.setQueuePosition(0);
+            status.setStartTime(LocalDateTime.now());
+            publish();
+            boolean success = false;
+            try {
+                success = doBuild(this);
+            } catch (Exception e) {
+                log.error("构建 Vue 项目异常：{}", projectDir.getAbsolutePath(), e);
+                status.setMessage(e.getMessage());
+            } finally {
+                status.setStatus(success ? VueBuildStatusEnum.SUCCESS.getValue() : VueBuildStatusEnum.FAILED.getValue());
+                if (success) {
+                    status.setProgress(100);
+                }
+                status.setFinishTime(LocalDateTime.now());
+                buildLog.complete();
+                activeTasks.remove(projectName, this);
+                runningTasks.remove(projectName, this);
+                publish();
+                updates.tryEmitComplete();
+                future.complete(success);
+            }
+        }
+
+        private void updateStatus(VueBuildStatusEnum statusEnum) {
+            status.setStatus(statusEnum.getValue());
+            if (statusEnum == VueBuildStatusEnum.BUILDING) {
+                status.setProgress(Math.max(status.getProgress(), 50));
+            }
+            publish();
+        }
+
+        /**
+         * 进度只增不减，变化时推送
+         */
+        private void updateProgress(int progress) {
+            if (progress > status.getProgress()) {
+                status.setProgress(progress);
+                publish();
+            }
+        }
+
+        /**
+         * 推送当前状态的副本，避免订阅者读到之后的修改
+         */
+        private synchronized void publish() {
+            updates.tryEmitNext(BeanUtil.copyProperties(status, VueBuildStatusVO.class));
+        }
+
+        @Override
+        public int compareTo(BuildTask other) {
+            if (priority != other.priority) {
+                return Integer.compare(priority, other.priority);
+            }
+            return Long.compare(seq, other.seq);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.szh.aicodebackend.core.deploy;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.HexUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONUtil;
+import com.szh.aicodebackend.config.DeployConfig;
+import com.szh.aicodebackend.constant.AppConstant;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内容寻址的增量部署
+ * 文件内容按 SHA-256 存入内容仓库，相同内容（跨应用、跨版本）只存一份；每次部署生成一个版本目录，
+ * 其中的文件都是指向内容仓库的硬链接，并记录部署清单。部署目录本身是指向当前版本的符号链接，
+ * 新版本就绪后原子替换该链接完成切换，访问方不会看到部署到一半的文件。
+ * 源文件大小和修改时间与上次部署一致时复用上次的哈希，不再读取内容
+ */
+@Slf4j
+@Component
+public class ContentAddressedDeployer {
+
+    private static final String MANIFEST_SUFFIX = ".json";
+
+    @Resource
+    private DeployConfig deployConfig;
+
+    /**
+     * 按 deployKey 分段加锁，同一应用同时只有一个部署
+     */
+    private final Object[] deployLocks = new Object[64];
+
+    /**
+     * 部署过程持读锁，清理不再被引用的内容时持写锁，避免刚判定为无引用的内容又被新部署链接
+     */
+    private final ReentrantReadWriteLock blobLock = new ReentrantReadWriteLock();
+
+    private volatile boolean hardLinkSupported = true;
+
+    public ContentAddressedDeployer() {
+        for (int i = 0; i < deployLocks.length; i++) {
+            deployLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 部署目录内容
+     *
+     * @param sourceDir 部署源目录
+     * @param deployKey 部署标识
+     * @return 本次生效的部署清单，内容未变化时为当前版本的清单
+     */
+    public DeployManifest deploy(File sourceDir, String deployKey) throws IOException {
+        synchronized (deployLocks[Math.floorMod(deployKey.hashCode(), deployLocks.length)]) {
+            Path liveLink = Paths.get(AppConstant.CODE_DEPLOY_ROOT_DIR, deployKey);
+            Path releasesDir = Paths.get(AppConstant.DEPLOY_RELEASE_DIR, deployKey);
+            DeployManifest previous = readCurrentManifest(liveLink, releasesDir);
+            DeployManifest manifest;
+            blobLock.readLock().lock();
+            try {
+                manifest = buildManifest(sourceDir.toPath(), previous);
+                if (previous != null && manifest.getContentHash().equals(previous.getContentHash())
+                        && Files.isDirectory(liveLink)) {
+                    log.info("部署内容未变化，沿用当前版本：{} -> {}", deployKey, previous.getReleaseId());
+                    return previous;
+                }
+                manifest.setReleaseId(IdUtil.getSnowflakeNextIdStr());
+                Path releaseDir = releasesDir.resolve(manifest.getReleaseId());
+                Path manifestFile = releasesDir.resolve(manifest.getReleaseId() + MANIFEST_SUFFIX);
+                int storedBlobs;
+                try {
+                    storedBlobs = materialize(sourceDir.toPath(), releaseDir, manifest);
+                    Files.writeString(manifestFile, JSONUtil.toJsonStr(manifest), StandardCharsets.UTF_8);
+                    switchLive(liveLink, releaseDir);
+                } catch (IOException | RuntimeException e) {
+                    // 未切换成功的版本不会被清理逻辑识别（清理按清单文件查找），在此删除
+                    FileUtil.del(releaseDir);
+                    Files.deleteIfExists(manifestFile);
+                    throw e;
+                }
+                log.info("部署完成：{} -> {}，共 {} 个文件，新增内容 {} 个",
+                        deployKey, manifest.getReleaseId(), manifest.getFiles().size(), storedBlobs);
+            } finally {
+                blobLock.readLock().unlock();
+            }
+            pruneReleases(releasesDir);
+            return manifest;
+        }
+    }
+
+    /**
+     * 生成部署清单，大小和修改时间未变的文件复用上次的哈希
+     */
+    private DeployManifest buildManifest(Path sourceRoot, DeployManifest previous) throws IOException {
+        DeployManifest manifest = new DeployManifest();
+        Map<String, DeployManifest.FileEntry> previousFiles = previous == null ? Map.of() : previous.getFiles();
+        Files.walkFileTree(sourceRoot, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String key = sourceRoot.relativize(file).toString().replace('\\', '/');
+                DeployManifest.FileEntry entry = new DeployManifest.FileEntry();
+                entry.setSize(attrs.size());
+                entry.setLastModified(attrs.lastModifiedTime().toMillis());
+                DeployManifest.FileEntry old = previousFiles.get(key);
+                if (old != null && old.getSize() == entry.getSize() && old.getLastModified() == entry.getLastModified()
+                        && Files.exists(blobPath(old.getHash()))) {
+                    entry.setHash(old.getHash());
+                } else {
+                    entry.setHash(DigestUtil.sha256Hex(file.toFile()));
+                }
+                manifest.getFiles().put(key, entry);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        MessageDigest digest = DigestUtil.digester("SHA-256").getDigest();
+        manifest.getFiles().forEach((key, entry) -> {
+            digest.update(key.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(entry.getHash().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        });
+        manifest.setContentHash(HexUtil.encodeHexStr(digest.digest()));
+        return manifest;
+    }
+
+    /**
+     * 将缺失的内容写入内容仓库，并在版本目录中链接出完整的文件树
+     *
+     * @return 新写入内容仓库的文件数
+     */
+    private int materialize(Path sourceRoot, Path releaseDir, DeployManifest manifest) throws IOException {
+        int storedBlobs = 0;
+        for (Map.Entry<String, DeployManifest.FileEntry> entry : manifest.getFiles().entrySet()) {
+            Path blob = blobPath(entry.getValue().getHash());
+            if (!Files.exists(blob)) {
+                storeBlob(sourceRoot.resolve(entry.getKey()), blob);
+                storedBlobs++;
+            }
+            Path target = releaseDir.resolve(entry.getKey());
+            Files.createDirectories(target.getParent());
+            linkBlob(blob, target);
+        }
+        Files.createDirectories(releaseDir);
+        return storedBlobs;
+    }
+
+    private void storeBlob(Path source, Path blob) throws IOException {
+        Files.createDirectories(blob.getParent());
+        Path temp = Files.createTempFile(blob.getParent(), blob.getFileName().toString(), ".tmp");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, blob, StandardCopyOption.REPLACE_EXISTING);
+            } catch (FileAlreadyExistsException e) {
+                // 其他部署已写入相同内容
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 链接内容到版本目录
+     * 跨设备或文件系统不支持硬链接时，之后的部署都改为复制；其他失败（如链接数达到上限）只复制当前文件
+     */
+    private void linkBlob(Path blob, Path target) throws IOException {
+        if (isHardLinkMode()) {
+            try {
+                Files.createLink(target, blob);
+                return;
+            } catch (UnsupportedOperationException e) {
+                disableHardLinks(e.getMessage());
+            } catch (FileSystemException e) {
+                if (isHardLinkUnsupported(e)) {
+                    disableHardLinks(e.getMessage());
+                } else {
+                    log.warn("创建硬链接失败，复制该文件：{}，错误：{}", target, e.getMessage());
+                }
+            }
+        }
+        Files.copy(blob, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private boolean isHardLinkMode() {
+        return deployConfig.isHardLinks() && hardLinkSupported;
+    }
+
+    private void disableHardLinks(String reason) {
+        hardLinkSupported = false;
+        log.warn("当前文件系统无法创建硬链接，改为复制部署文件：{}", reason);
+    }
+
+    private static boolean isHardLinkUnsupported(FileSystemException e) {
+        String reason = e.getReason();
+        if (reason == null) {
+            return false;
+        }
+        String lower = reason.toLowerCase();
+        return lower.contains("cross-device") || lower.contains("not supported") || lower.contains("not permitted");
+    }
+
+    /**
+     * 原子替换部署目录的符号链接，使其指向新版本
+     */
+    private void switchLive(Path liveLink, Path releaseDir) throws IOException {
+        Files.createDirectories(liveLink.getParent());
+        if (Files.exists(liveLink, LinkOption.NOFOLLOW_LINKS) && !Files.isSymbolicLink(liveLink)) {
+            // 之前直接复制文件的部署目录，首次切换时移除
+            FileUtil.del(liveLink);
+        }
+        Path tempLink = liveLink.resolveSibling("." + liveLink.getFileName() + "." + releaseDir.getFileName() + ".tmp");
+        Files.deleteIfExists(tempLink);
+        Files.createSymbolicLink(tempLink, releaseDir.toAbsolutePath());
+        try {
+            Files.move(tempLink, liveLink, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempLink, liveLink, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempLink);
+        }
+    }
+
+    /**
+     * 读取当前生效版本的清单，不存在或无法解析时返回 null
+     */
+    private DeployManifest readCurrentManifest(Path liveLink, Path releasesDir) {
+        if (!Files.isSymbolicLink(liveLink)) {
+            return null;
+        }
+        try {
+            String releaseId = Files.readSymbolicLink(liveLink).getFileName().toString();
+            Path manifestFile = releasesDir.resolve(releaseId + MANIFEST_SUFFIX);
+            if (!Files.isRegularFile(manifestFile)) {
+                return null;
+            }
+            return JSONUtil.toBean(Files.readString(manifestFile, StandardCharsets.UTF_8), DeployManifest.class);
+        } catch (Exception e) {
+            log.warn("读取部署清单失败：{}，错误：{}", liveLink, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 只保留最近的几个版本，删除更早的版本并清理不再被任何版本链接的内容
+     */
+    private void pruneReleases(Path releasesDir) {
+        List<Path> manifestFiles = new ArrayList<>(FileUtil.loopFiles(releasesDir.toFile(), 1,
+                file -> file.getName().endsWith(MANIFEST_SUFFIX)).stream().map(File::toPath).toList());
+        int keep = Math.max(1, deployConfig.getKeepReleases());
+        if (manifestFiles.size() <= keep) {
+            return;
+        }
+        manifestFiles.sort(Comparator.comparingLong(ContentAddressedDeployer::releaseIdOf).reversed());
+        Set<String> keptHashes = new HashSet<>();
+        Set<String> candidates = new HashSet<>();
+        for (int i = 0; i < manifestFiles.size(); i++) {
+            Path manifestFile = manifestFiles.get(i);
+            DeployManifest manifest;
+            try {
+                manifest = JSONUtil.toBean(Files.readString(manifestFile, StandardCharsets.UTF_8), DeployManifest.class);
+            } catch (Exception e) {
+                log.warn("读取部署清单失败：{}，错误：{}", manifestFile, e.getMessage());
+                continue;
+            }
+            Set<String> hashes = new HashSet<>();
+            manifest.getFiles().values().forEach(entry -> hashes.add(entry.getHash()));
+            if (i < keep) {
+                keptHashes.addAll(hashes);
+                continue;
+            }
+            candidates.addAll(hashes);
+            FileUtil.del(releasesDir.resolve(String.valueOf(releaseIdOf(manifestFile))));
+            FileUtil.del(manifestFile);
+        }
+        candidates.removeAll(keptHashes);
+        collectBlobs(candidates);
+    }
+
+    /**
+     * 删除链接数为 1（只剩内容仓库自身）的内容
+     * 复制模式下链接数不能反映引用情况，不清理
+     */
+    private void collectBlobs(Set<String> hashes) {
+        if (hashes.isEmpty() || !isHardLinkMode()) {
+            return;
+        }
+        int removed = 0;
+        blobLock.writeLock().lock();
+        try {
+            for (String hash : hashes) {
+                Path blob = blobPath(hash);
+                try {
+                    if (Files.exists(blob) && ((Number) Files.getAttribute(blob, "unix:nlink")).intValue() <= 1) {
+                        Files.delete(blob);
+                        removed++;
+                    }
+                } catch (UnsupportedOperationException | IllegalArgumentException e) {
+                    // 无法获取链接数时不清理
+                    return;
+                } catch (IOException e) {
+                    log.warn("清理部署内容失败：{}，错误：{}", blob, e.getMessage());
+                }
+            }
+        } finally {
+            blobLock.writeLock().unlock();
+        }
+        if (removed > 0) {
+            log.info("已清理不再被引用的部署内容 {} 个", removed);
+        }
+    }
+
+    private static Path blobPath(String hash) {
+        return Paths.get(AppConstant.DEPLOY_BLOB_DIR, hash.substring(0, 2), hash);
+    }
+
+    private static long releaseIdOf(Path manifestFile) {
+        String name = manifestFile.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - MANIFEST_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,44 @@
+package com.szh.aicodebackend.core.deploy;
+
+import lombok.Data;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 部署清单：一次部署包含的全部文件及其内容哈希
+ */
+@Data
+public class DeployManifest {
+
+    /**
+     * 部署版本 id，按时间递增
+     */
+    private String releaseId;
+
+    /**
+     * 整体内容哈希，由各文件的路径和内容哈希计算，内容不变则不变
+     */
+    private String contentHash;
+
+    /**
+     * 相对路径（/ 分隔）-> 文件信息，按路径有序
+     */
+    private Map<String, FileEntry> files = new TreeMap<>();
+
+    @Data
+    public static class FileEntry {
+
+        /**
+         * 内容哈希（SHA-256）
+         */
+        private String hash;
+
+        private long size;
+
+        /**
+         * 部署时源文件的修改时间，大小和修改时间都未变时复用上次的哈希
+         */
+        private long lastModified;
+    }
+}
@@ -1,15 +1,12 @@
 package com.szh.aicodebackend.core.handler;
 
 
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.szh.aicodebackend.ai.model.message.*;
 import com.szh.aicodebackend.ai.tools.BaseTool;
 import com.szh.aicodebackend.ai.tools.ToolManager;
-import com.szh.aicodebackend.constant.AppConstant;
-import com.szh.aicodebackend.core.builder.VueProjectBuilder;
 import com.szh.aicodebackend.model.entity.User;
 import com.szh.aicodebackend.model.enums.ChatHistoryMessageTypeEnum;
 import com.szh.aicodebackend.service.ChatHistoryService;
@@ -35,15 +32,15 @@ public class JsonMessageStreamHandler {
 
     /**
      * 处理 TokenStream（VUE_PROJECT）
-     * 解析 JSON 消息并重组为完整的响应格式
+     * 按消息类型分发并重组为完整的响应格式
      *
-     * @param originFlux         原始流
+     * @param originFlux         原始消息流
      * @param chatHistoryService 聊天历史服务
      * @param appId              应用ID
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         // 收集数据用于生成后端记忆格式
@@ -51,9 +48,9 @@ public class JsonMessageStreamHandler {
         // 用于跟踪已经见过的工具ID，判断是否是第一次调用
         Set<String> seenToolIds = new HashSet<>();
         return originFlux
-                .map(chunk -> {
-                    // 解析每个 JSON 消息块
-                    return handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds);
+                .map(message -> {
+                    // 处理每条消息
+                    return handleStreamMessage(message, chatHistoryStringBuilder, seenToolIds);
                 })
                 .filter(StrUtil::isNotEmpty) // 过滤空字串
                 .doOnComplete(() -> {
@@ -69,52 +66,40 @@ public class JsonMessageStreamHandler {
     }
 
     /**
-     * 解析并收集 TokenStream 数据
+     * 按消息类型处理并收集 TokenStream 数据
      */
-    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
-        // 解析 JSON
-        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
-        StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
-        switch (typeEnum) {
-            case AI_RESPONSE -> {
-                AiResponseMessage aiMessage = JSONUtil.toBean(chunk, AiResponseMessage.class);
-                String data = aiMessage.getData();
-                // 直接拼接响应
-                chatHistoryStringBuilder.append(data);
-                return data;
-            }
-            case TOOL_REQUEST -> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
-                String toolId = toolRequestMessage.getId();
-                String toolName = toolRequestMessage.getName();
-                // 检查是否是第一次看到这个工具 ID
-                if (toolId != null && !seenToolIds.contains(toolId)) {
-                    // 第一次调用这个工具，记录 ID 并完整返回工具信息
-                    seenToolIds.add(toolId);
-                    //根据工具名称获取工具实例
-                    BaseTool tool = toolManager.getTool(toolName);
-                    return tool.generateToolRequestResponse();
-                } else {
-                    // 不是第一次调用这个工具，直接返回空
-                    return "";
-                }
-            }
-            case TOOL_EXECUTED -> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
-                String toolName = toolExecutedMessage.getName();
-                JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
-                //根据工具名称获取工具实例并生成相应的结果格式
+    private String handleStreamMessage(StreamMessage streamMessage, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
+        if (streamMessage instanceof AiResponseMessage aiMessage) {
+            String data = aiMessage.getData();
+            // 直接拼接响应
+            chatHistoryStringBuilder.append(data);
+            return data;
+        }
+        if (streamMessage instanceof ToolRequestMessage toolRequestMessage) {
+            String toolId = toolRequestMessage.getId();
+            String toolName = toolRequestMessage.getName();
+            // 检查是否是第一次看到这个工具 ID
+            if (toolId != null && seenToolIds.add(toolId)) {
+                // 第一次调用这个工具，完整返回工具信息
+                //根据工具名称获取工具实例
                 BaseTool tool = toolManager.getTool(toolName);
-                String result = tool.generateToolExecutedResult(jsonObject);
-                // 输出前端和要持久化的内容
-                String output = String.format("\n\n%s\n\n", result);
-                chatHistoryStringBuilder.append(output);
-                return output;
-            }
-            default -> {
-                log.error("不支持的消息类型: {}", typeEnum);
-                return "";
+                return tool.generateToolRequestResponse();
             }
+            // 不是第一次调用这个工具，直接返回空
+            return "";
+        }
+        if (streamMessage instanceof ToolExecutedMessage toolExecutedMessage) {
+            String toolName = toolExecutedMessage.getName();
+            JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
+            //根据工具名称获取工具实例并生成相应的结果格式
+            BaseTool tool = toolManager.getTool(toolName);
+            String result = tool.generateToolExecutedResult(jsonObject);
+            // 输出前端和要持久化的内容
+            String output = String.format("\n\n%s\n\n", result);
+            chatHistoryStringBuilder.append(output);
+            return output;
         }
+        log.error("不支持的消息类型: {}", streamMessage.getType());
+        return "";
     }
-}
\ No newline at end of file
+}
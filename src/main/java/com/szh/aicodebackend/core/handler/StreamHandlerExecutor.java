@@ -1,5 +1,8 @@
 package com.szh.aicodebackend.core.handler;
 
+import com.szh.aicodebackend.ai.model.message.StreamMessage;
+import com.szh.aicodebackend.exception.BusinessException;
+import com.szh.aicodebackend.exception.ErrorCode;
 import com.szh.aicodebackend.model.entity.User;
 import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
 import com.szh.aicodebackend.service.ChatHistoryService;
@@ -12,7 +15,7 @@ import reactor.core.publisher.Flux;
  * 流处理器执行器
  * 根据代码生成类型创建合适的流处理器：
  * 1. 传统的 Flux<String> 流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
- * 2. TokenStream 格式的复杂流（VUE_PROJECT） -> JsonMessageStreamHandler
+ * 2. TokenStream 转换的 Flux<StreamMessage> 消息流（VUE_PROJECT） -> JsonMessageStreamHandler
  */
 @Slf4j
 @Component
@@ -22,7 +25,7 @@ public class StreamHandlerExecutor {
     private JsonMessageStreamHandler jsonMessageStreamHandler;
 
     /**
-     * 创建流处理器并处理聊天历史记录
+     * 创建流处理器并处理聊天历史记录（HTML、MULTI_FILE）
      *
      * @param originFlux         原始流
      * @param chatHistoryService 聊天历史服务
@@ -35,10 +38,25 @@ public class StreamHandlerExecutor {
                                   ChatHistoryService chatHistoryService,
                                   long appId, User loginUser, CodeGenTypeEnum codeGenType) {
         return switch (codeGenType) {
-            case VUE_PROJECT -> // 使用注入的组件实例
-                    jsonMessageStreamHandler.handle(originFlux, chatHistoryService, appId, loginUser);
             case HTML, MULTI_FILE -> // 简单文本处理器不需要依赖注入
                     new SimpleTextStreamHandler().handle(originFlux, chatHistoryService, appId, loginUser);
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
         };
     }
+
+    /**
+     * 创建流处理器并处理聊天历史记录（VUE_PROJECT 消息流）
+     *
+     * @param originFlux         原始消息流
+     * @param chatHistoryService 聊天历史服务
+     * @param appId              应用ID
+     * @param loginUser          登录用户
+     * @return 处理后的流
+     */
+    public Flux<String> doExecute(Flux<StreamMessage> originFlux,
+                                  ChatHistoryService chatHistoryService,
+                                  long appId, User loginUser) {
+        // 使用注入的组件实例
+        return jsonMessageStreamHandler.handle(originFlux, chatHistoryService, appId, loginUser);
+    }
 }
@@ -0,0 +1,45 @@
+package com.szh.aicodebackend.core.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 代码块收集器
+ * 将流式解析出的代码块拼接为完整字符串，供一次性解析使用
+ */
+class CodeBlockCollector implements CodeBlockListener {
+
+    private final Map<String, StringBuilder> building = new HashMap<>();
+
+    private final Map<String, String> blocks = new HashMap<>();
+
+    @Override
+    public void onBlockStart(String language) {
+        building.put(language, new StringBuilder());
+    }
+
+    @Override
+    public void onBlockContent(String language, CharSequence content) {
+        building.get(language).append(content);
+    }
+
+    @Override
+    public void onBlockEnd(String language) {
+        blocks.put(language, building.remove(language).toString());
+    }
+
+    @Override
+    public void onBlockDiscard(String language) {
+        building.remove(language);
+    }
+
+    /**
+     * 获取已闭合的代码块内容
+     *
+     * @param language 代码块语言
+     * @return 代码内容，不存在返回 null
+     */
+    String getCode(String language) {
+        return blocks.get(language);
+    }
+}
@@ -0,0 +1,38 @@
+package com.szh.aicodebackend.core.parser;
+
+/**
+ * 代码块监听器
+ * 接收 {@link StreamingCodeParser} 增量推送的代码块事件
+ */
+public interface CodeBlockListener {
+
+    /**
+     * 代码块开始
+     *
+     * @param language 代码块语言（已归一化，如 html / css / js）
+     */
+    void onBlockStart(String language);
+
+    /**
+     * 代码块内容片段
+     * 注意：content 为解析器内部复用的缓冲区，只能在回调内同步消费
+     *
+     * @param language 代码块语言
+     * @param content   内容片段
+     */
+    void onBlockContent(String language, CharSequence content);
+
+    /**
+     * 代码块正常闭合
+     *
+     * @param language 代码块语言
+     */
+    void onBlockEnd(String language);
+
+    /**
+     * 代码块未闭合（输出被截断），应丢弃已接收的内容
+     *
+     * @param language 代码块语言
+     */
+    void onBlockDiscard(String language);
+}
@@ -1,9 +1,9 @@
 package com.szh.aicodebackend.core.parser;
 
+import cn.hutool.core.util.StrUtil;
 import com.szh.aicodebackend.ai.model.HtmlCodeResult;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * HTML 单文件代码解析器
@@ -11,15 +11,15 @@ import java.util.regex.Pattern;
  */
 public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> LANGUAGES = Set.of("html");
 
     @Override
     public HtmlCodeResult parseCode(String codeContent) {
         HtmlCodeResult result = new HtmlCodeResult();
         // 提取 HTML 代码
         String htmlCode = extractHtmlCode(codeContent);
-        if (htmlCode != null && !htmlCode.trim().isEmpty()) {
-            result.setHtmlCode(htmlCode.trim());
+        if (StrUtil.isNotEmpty(htmlCode)) {
+            result.setHtmlCode(htmlCode);
         } else {
             // 如果没有找到代码块，将整个内容作为HTML
             result.setHtmlCode(codeContent.trim());
@@ -31,14 +31,14 @@ public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
      * 提取HTML代码内容
      *
      * @param content 原始内容
-     * @return HTML代码
+     * @return HTML代码（已去除首尾空白）
      */
     private String extractHtmlCode(String content) {
-        Matcher matcher = HTML_CODE_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
+        CodeBlockCollector collector = new CodeBlockCollector();
+        StreamingCodeParser parser = new StreamingCodeParser(LANGUAGES, collector);
+        parser.append(content);
+        parser.finish();
+        return collector.getCode("html");
     }
 
 }
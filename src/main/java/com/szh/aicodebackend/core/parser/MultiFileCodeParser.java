@@ -1,9 +1,9 @@
 package com.szh.aicodebackend.core.parser;
 
+import cn.hutool.core.util.StrUtil;
 import com.szh.aicodebackend.ai.model.MultiFileCodeResult;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * 多文件代码解析器（HTML + CSS + JS）
@@ -11,44 +11,31 @@ import java.util.regex.Pattern;
  */
 public class MultiFileCodeParser implements CodeParser<MultiFileCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
-    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> LANGUAGES = Set.of("html", "css", "js");
 
     @Override
     public MultiFileCodeResult parseCode(String codeContent) {
         MultiFileCodeResult result = new MultiFileCodeResult();
-        // 提取各类代码
-        String htmlCode = extractCodeByPattern(codeContent, HTML_CODE_PATTERN);
-        String cssCode = extractCodeByPattern(codeContent, CSS_CODE_PATTERN);
-        String jsCode = extractCodeByPattern(codeContent, JS_CODE_PATTERN);
+        // 一次遍历提取各类代码
+        CodeBlockCollector collector = new CodeBlockCollector();
+        StreamingCodeParser parser = new StreamingCodeParser(LANGUAGES, collector);
+        parser.append(codeContent);
+        parser.finish();
+        String htmlCode = collector.getCode("html");
+        String cssCode = collector.getCode("css");
+        String jsCode = collector.getCode("js");
         // 设置HTML代码
-        if (htmlCode != null && !htmlCode.trim().isEmpty()) {
-            result.setHtmlCode(htmlCode.trim());
+        if (StrUtil.isNotEmpty(htmlCode)) {
+            result.setHtmlCode(htmlCode);
         }
         // 设置CSS代码
-        if (cssCode != null && !cssCode.trim().isEmpty()) {
-            result.setCssCode(cssCode.trim());
+        if (StrUtil.isNotEmpty(cssCode)) {
+            result.setCssCode(cssCode);
         }
         // 设置JS代码
-        if (jsCode != null && !jsCode.trim().isEmpty()) {
-            result.setJsCode(jsCode.trim());
+        if (StrUtil.isNotEmpty(jsCode)) {
+            result.setJsCode(jsCode);
         }
         return result;
     }
-
-    /**
-     * 根据正则模式提取代码
-     *
-     * @param content 原始内容
-     * @param pattern 正则模式
-     * @return 提取的代码
-     */
-    private String extractCodeByPattern(String content, Pattern pattern) {
-        Matcher matcher = pattern.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
 }
@@ -0,0 +1,250 @@
+package com.szh.aicodebackend.core.parser;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式代码块解析器
+ * 基于状态机逐字符识别 ```lang 代码块，代码块内容增量推送给监听器，无需缓存完整的 AI 输出。
+ * 与原正则解析保持一致：每种语言只取第一个代码块，代码内容去除首尾空白，未闭合的代码块视为无效。
+ */
+public class StreamingCodeParser {
+
+    /**
+     * 语言别名
+     */
+    private static final Map<String, String> LANGUAGE_ALIASES = Map.of("javascript", "js");
+
+    /**
+     * 代码块围栏长度
+     */
+    private static final int FENCE_LENGTH = 3;
+
+    /**
+     * 语言标识最大长度，超出视为无法识别的代码块
+     */
+    private static final int MAX_INFO_LENGTH = 32;
+
+    private enum State {
+        /**
+         * 代码块外的普通文本
+         */
+        TEXT,
+        /**
+         * 读取 ``` 之后的语言标识
+         */
+        FENCE_INFO,
+        /**
+         * 语言标识之后、代码正文之前的空白
+         */
+        FENCE_SPACE,
+        /**
+         * 代码块内部
+         */
+        BLOCK
+    }
+
+    /**
+     * 需要提取的语言
+     */
+    private final Set<String> languages;
+
+    private final CodeBlockListener listener;
+
+    /**
+     * 已出现过的语言，每种语言只取第一个代码块
+     */
+    private final Set<String> seenLanguages = new HashSet<>();
+
+    private final StringBuilder info = new StringBuilder();
+
+    /**
+     * 当前片段待推送的内容（复用）
+     */
+    private final StringBuilder content = new StringBuilder();
+
+    /**
+     * 暂存的空白字符，后续出现非空白字符时才写出，用于去除尾部空白
+     */
+    private final StringBuilder pendingWhitespace = new StringBuilder();
+
+    private State state = State.TEXT;
+
+    /**
+     * 连续反引号计数（可跨片段）
+     */
+    private int backticks;
+
+    /**
+     * 语言标识之后是否已出现换行
+     */
+    private boolean fenceNewline;
+
+    /**
+     * 当前代码块语言，为 null 表示跳过该代码块
+     */
+    private String currentLanguage;
+
+    /**
+     * 当前代码块是否已出现非空白字符，用于去除首部空白
+     */
+    private boolean contentStarted;
+
+    public StreamingCodeParser(Set<String> languages, CodeBlockListener listener) {
+        this.languages = languages;
+        this.listener = listener;
+    }
+
+    /**
+     * 追加一个输出片段
+     *
+     * @param chunk 输出片段
+     */
+    public void append(CharSequence chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            switch (state) {
+                case TEXT -> onText(c);
+                case FENCE_INFO -> onFenceInfo(c);
+                case FENCE_SPACE -> onFenceSpace(c);
+                case BLOCK -> onBlock(c);
+            }
+        }
+        flushContent();
+    }
+
+    /**
+     * 输出结束，未闭合的代码块通知监听器丢弃
+     */
+    public void finish() {
+        if (state == State.BLOCK && currentLanguage != null) {
+            content.setLength(0);
+            listener.onBlockDiscard(currentLanguage);
+        }
+        currentLanguage = null;
+        pendingWhitespace.setLength(0);
+        backticks = 0;
+        state = State.TEXT;
+    }
+
+    private void onText(char c) {
+        if (c != '`') {
+            backticks = 0;
+            return;
+        }
+        if (++backticks == FENCE_LENGTH) {
+            backticks = 0;
+            info.setLength(0);
+            fenceNewline = false;
+            state = State.FENCE_INFO;
+        }
+    }
+
+    private void onFenceInfo(char c) {
+        if (isSpace(c)) {
+            fenceNewline = c == '\n';
+            state = State.FENCE_SPACE;
+            return;
+        }
+        if (info.length() >= MAX_INFO_LENGTH) {
+            startBlock(null);
+            onBlock(c);
+            return;
+        }
+        info.append(c);
+    }
+
+    private void onFenceSpace(char c) {
+        if (isSpace(c)) {
+            fenceNewline |= c == '\n';
+            return;
+        }
+        // 语言标识后必须先换行才进入代码正文（与 ```html\s*\n 一致）
+        startBlock(fenceNewline ? resolveLanguage() : null);
+        onBlock(c);
+    }
+
+    private void onBlock(char c) {
+        if (c == '`') {
+            if (++backticks == FENCE_LENGTH) {
+                endBlock();
+            }
+            return;
+        }
+        if (currentLanguage == null) {
+            backticks = 0;
+            return;
+        }
+        // 不足三个的反引号属于代码内容
+        for (; backticks > 0; backticks--) {
+            appendContent('`');
+        }
+        appendContent(c);
+    }
+
+    private void appendContent(char c) {
+        if (c <= ' ') {
+            if (contentStarted) {
+                pendingWhitespace.append(c);
+            }
+            return;
+        }
+        contentStarted = true;
+        if (!pendingWhitespace.isEmpty()) {
+            content.append(pendingWhitespace);
+            pendingWhitespace.setLength(0);
+        }
+        content.append(c);
+    }
+
+    private void startBlock(String language) {
+        state = State.BLOCK;
+        backticks = 0;
+        contentStarted = false;
+        pendingWhitespace.setLength(0);
+        currentLanguage = language;
+        if (language != null) {
+            seenLanguages.add(language);
+            listener.onBlockStart(language);
+        }
+    }
+
+    private void endBlock() {
+        backticks = 0;
+        state = State.TEXT;
+        if (currentLanguage != null) {
+            flushContent();
+            pendingWhitespace.setLength(0);
+            listener.onBlockEnd(currentLanguage);
+            currentLanguage = null;
+        }
+    }
+
+    private void flushContent() {
+        if (currentLanguage != null && !content.isEmpty()) {
+            listener.onBlockContent(currentLanguage, content);
+            content.setLength(0);
+        }
+    }
+
+    /**
+     * 解析语言标识，返回需要提取且首次出现的语言，否则返回 null
+     */
+    private String resolveLanguage() {
+        String language = info.toString().toLowerCase(Locale.ROOT);
+        language = LANGUAGE_ALIASES.getOrDefault(language, language);
+        if (languages.contains(language) && !seenLanguages.contains(language)) {
+            return language;
+        }
+        return null;
+    }
+
+    /**
+     * 与正则 \s 保持一致的空白字符
+     */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+}
@@ -7,6 +7,7 @@ import com.szh.aicodebackend.exception.BusinessException;
 import com.szh.aicodebackend.exception.ErrorCode;
 
 import java.io.File;
+import java.util.Map;
 
 /**
  * 代码文件保存执行器
@@ -34,4 +35,20 @@ public class CodeFileSaverExecutor {
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
         };
     }
+
+    /**
+     * 创建流式代码保存器
+     *
+     * @param codeGenType 代码生成类型
+     * @param appId       应用ID
+     * @return 流式代码保存器（每次生成一个实例）
+     */
+    public static StreamingCodeFileSaver createStreamingSaver(CodeGenTypeEnum codeGenType, Long appId) {
+        return switch (codeGenType) {
+            case HTML -> new StreamingCodeFileSaver(codeGenType, appId, Map.of("html", "index.html"));
+            case MULTI_FILE -> new StreamingCodeFileSaver(codeGenType, appId,
+                    Map.of("html", "index.html", "css", "style.css", "js", "script.js"));
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
 }
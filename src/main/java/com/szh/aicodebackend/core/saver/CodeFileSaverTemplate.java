@@ -42,10 +42,17 @@ public abstract class CodeFileSaverTemplate<T> {
      * 构建唯一目录路径：tmp/code_output/bizType_雪花ID
      */
     protected final String buildUniqueDir(Long appId) {
+        return buildUniqueDir(getCodeType(), appId);
+    }
+
+    /**
+     * 构建唯一目录路径（供流式保存器复用）
+     */
+    static String buildUniqueDir(CodeGenTypeEnum codeGenType, Long appId) {
         if (appId == null){
             throw new BusinessException(ErrorCode.PARAMS_ERROR,"应用ID不能为空");
         }
-        String codeType = getCodeType().getValue();
+        String codeType = codeGenType.getValue();
         String uniqueDirName = StrUtil.format("{}_{}",codeType,appId);
         String dirPath = FILE_SAVE_ROOT_DIR + File.separator + uniqueDirName;
         FileUtil.mkdir(dirPath);
@@ -0,0 +1,347 @@
+package com.szh.aicodebackend.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.szh.aicodebackend.core.parser.CodeBlockListener;
+import com.szh.aicodebackend.core.parser.StreamingCodeParser;
+import com.szh.aicodebackend.exception.BusinessException;
+import com.szh.aicodebackend.exception.ErrorCode;
+import com.szh.aicodebackend.exception.ThrowUtils;
+import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式代码保存器
+ * 边接收 AI 输出边解析代码块，代码块内容通过 FileChannel 直接写入暂存目录，内存占用只与单个输出片段相关。
+ * 输出结束并校验通过后才将暂存目录整体替换为应用目录（本次未生成的文件以硬链接沿用原有版本），
+ * 校验失败或生成中断时应用目录保持不变。因此预览只在生成结束时更新，不再随每个代码块完成而更新。
+ * 每次生成创建一个实例，非线程安全。
+ */
+@Slf4j
+public class StreamingCodeFileSaver implements CodeBlockListener, Closeable {
+
+    private static final String HTML_LANGUAGE = "html";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String STAGING_SUFFIX = ".staging-";
+
+    private static final String RETIRED_SUFFIX = ".old-";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Path baseDir;
+
+    /**
+     * 暂存目录，与应用目录同级，首次写入时创建
+     */
+    private final Path stagingDir;
+
+    /**
+     * 代码块语言 -> 文件名
+     */
+    private final Map<String, String> fileNames;
+
+    private final StreamingCodeParser parser;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * 已保存的文件
+     */
+    private final Set<String> savedFiles = new HashSet<>();
+
+    /**
+     * HTML 模式兜底内容：未出现 html 代码块时将整个输出作为 HTML，出现后即释放
+     */
+    private StringBuilder fallbackContent;
+
+    private FileChannel channel;
+
+    private Path tempPath;
+
+    private long writtenBytes;
+
+    /**
+     * 片段末尾被截断的高位代理字符
+     */
+    private char pendingHighSurrogate;
+
+    private boolean failed;
+
+    public StreamingCodeFileSaver(CodeGenTypeEnum codeGenType, Long appId, Map<String, String> fileNames) {
+        this.baseDir = Path.of(CodeFileSaverTemplate.buildUniqueDir(codeGenType, appId));
+        this.stagingDir = baseDir.resolveSibling(baseDir.getFileName() + STAGING_SUFFIX + IdUtil.getSnowflakeNextIdStr());
+        this.fileNames = fileNames;
+        this.parser = new StreamingCodeParser(fileNames.keySet(), this);
+        this.fallbackContent = codeGenType == CodeGenTypeEnum.HTML ? new StringBuilder() : null;
+    }
+
+    /**
+     * 追加一个输出片段，保存失败只记录日志，不影响流式输出
+     *
+     * @param chunk 输出片段
+     */
+    public void append(String chunk) {
+        if (failed || chunk == null) {
+            return;
+        }
+        try {
+            if (fallbackContent != null) {
+                fallbackContent.append(chunk);
+            }
+            parser.append(chunk);
+        } catch (UncheckedIOException e) {
+            failed = true;
+            log.error("流式保存代码失败：{}", e.getMessage());
+            discardCurrent();
+        }
+    }
+
+    /**
+     * 输出结束，校验通过后替换应用目录并返回
+     *
+     * @return 保存的目录
+     */
+    public File finish() {
+        parser.finish();
+        ThrowUtils.throwIf(failed, ErrorCode.SYSTEM_ERROR, "流式保存代码失败");
+        String htmlFileName = fileNames.get(HTML_LANGUAGE);
+        boolean useFallback = !savedFiles.contains(htmlFileName);
+        if (useFallback && (fallbackContent == null || StrUtil.isBlank(fallbackContent))) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "HTML代码内容不能为空");
+        }
+        try {
+            if (useFallback) {
+                // 如果没有找到代码块，将整个内容作为HTML
+                Files.writeString(ensureStagingDir().resolve(htmlFileName), fallbackContent.toString().trim(), StandardCharsets.UTF_8);
+                fallbackContent = null;
+            }
+            swapIn();
+        } catch (IOException e) {
+            log.error("保存代码失败：{}", baseDir, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存代码失败");
+        }
+        return baseDir.toFile();
+    }
+
+    /**
+     * 释放资源，删除未完成的临时文件和未替换的暂存目录
+     */
+    @Override
+    public void close() {
+        discardCurrent();
+        if (Files.exists(stagingDir)) {
+            FileUtil.del(stagingDir);
+        }
+    }
+
+    @Override
+    public void onBlockStart(String language) {
+        if (HTML_LANGUAGE.equals(language)) {
+            fallbackContent = null;
+        }
+        writtenBytes = 0;
+        pendingHighSurrogate = 0;
+        encoder.reset();
+        try {
+            tempPath = ensureStagingDir().resolve(fileNames.get(language) + TEMP_SUFFIX);
+            channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onBlockContent(String language, CharSequence content) {
+        CharSequence text = content;
+        if (pendingHighSurrogate != 0) {
+            text = new StringBuilder(content.length() + 1).append(pendingHighSurrogate).append(content);
+            pendingHighSurrogate = 0;
+        }
+        int end = text.length();
+        // 代理对被拆分到两个片段时，留到下一个片段一起编码
+        if (Character.isHighSurrogate(text.charAt(end - 1))) {
+            pendingHighSurrogate = text.charAt(end - 1);
+            end--;
+        }
+        encode(CharBuffer.wrap(text, 0, end), false);
+    }
+
+    @Override
+    public void onBlockEnd(String language) {
+        String fileName = fileNames.get(language);
+        encode(CharBuffer.allocate(0), true);
+        try {
+            channel.close();
+            channel = null;
+            if (writtenBytes == 0) {
+                // 空代码块不覆盖已有文件
+                Files.deleteIfExists(tempPath);
+            } else {
+                moveToTarget(tempPath, stagingDir.resolve(fileName));
+                savedFiles.add(fileName);
+                log.info("代码块 {} 已保存：{}", language, fileName);
+            }
+            tempPath = null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onBlockDiscard(String language) {
+        log.warn("代码块 {} 未闭合，已丢弃", language);
+        discardCurrent();
+    }
+
+    /**
+     * 编码并写入 FileChannel，复用同一个 ByteBuffer
+     */
+    private void encode(CharBuffer in, boolean endOfInput) {
+        try {
+            while (true) {
+                CoderResult result = encoder.encode(in, byteBuffer, endOfInput);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (result.isUnderflow()) {
+                    break;
+                }
+                writeBuffer();
+            }
+            if (endOfInput) {
+                while (encoder.flush(byteBuffer).isOverflow()) {
+                    writeBuffer();
+                }
+            }
+            writeBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+            writtenBytes += channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+    }
+
+    private Path ensureStagingDir() throws IOException {
+        return Files.createDirectories(stagingDir);
+    }
+
+    /**
+     * 沿用应用目录中本次未生成的文件，再用暂存目录替换应用目录
+     * 两次重命名之间应用目录短暂不存在，第二次失败时恢复原目录
+     */
+    private void swapIn() throws IOException {
+        if (Files.isDirectory(baseDir)) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(baseDir)) {
+                for (Path entry : entries) {
+                    Path target = stagingDir.resolve(entry.getFileName());
+                    if (!Files.exists(target)) {
+                        carryOver(entry, target);
+                    }
+                }
+            }
+        }
+        Path retiredDir = baseDir.resolveSibling(baseDir.getFileName() + RETIRED_SUFFIX + IdUtil.getSnowflakeNextIdStr());
+        boolean retired = false;
+        if (Files.exists(baseDir)) {
+            Files.move(baseDir, retiredDir, StandardCopyOption.ATOMIC_MOVE);
+            retired = true;
+        }
+        // 两次重命名之间应用目录短暂不存在，此时访问预览（/static/{deployKey}）会返回 404
+        try {
+            Files.move(stagingDir, baseDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // 替换失败时恢复原目录
+            if (retired) {
+                Files.move(retiredDir, baseDir, StandardCopyOption.ATOMIC_MOVE);
+            }
+            throw e;
+        }
+        if (retired) {
+            FileUtil.del(retiredDir);
+        }
+    }
+
+    /**
+     * 将本次未生成的文件带入暂存目录，优先使用硬链接，耗时只与本次生成的文件相关而不是整个应用目录
+     */
+    private static void carryOver(Path source, Path target) throws IOException {
+        if (Files.isDirectory(source)) {
+            Files.createDirectories(target);
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+                for (Path entry : entries) {
+                    carryOver(entry, target.resolve(entry.getFileName()));
+                }
+            }
+            return;
+        }
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            // 文件系统不支持硬链接时复制
+            Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    private void moveToTarget(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 关闭当前文件通道并删除临时文件
+     */
+    private void discardCurrent() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (tempPath != null) {
+                Files.deleteIfExists(tempPath);
+            }
+        } catch (IOException e) {
+            log.warn("清理临时文件失败：{}", tempPath, e);
+        } finally {
+            channel = null;
+            tempPath = null;
+            byteBuffer.clear();
+        }
+    }
+}
@@ -0,0 +1,633 @@
+package com.szh.aicodebackend.core.serving;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.szh.aicodebackend.config.StaticResourceConfig;
+import com.szh.aicodebackend.constant.AppConstant;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 应用预览静态文件发送
+ * 文件元数据（大小、修改时间、基于内容哈希的强 ETag、内容类型、预压缩副本）缓存在内存中，命中后每隔 revalidateMillis
+ * 才检查一次文件状态，代码保存、构建完成时主动失效。支持条件请求（304）和单区间 Range 请求，
+ * 客户端支持时发送 br/gzip 预压缩副本，容器支持时使用 sendfile 零拷贝发送。
+ * 小文件的原始内容和 gzip 副本缓存在内存中（按字节数限制总量），热门应用的预览不再读盘
+ */
+@Slf4j
+@Component
+public class StaticFileServer {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 值得预压缩的文件类型
+     */
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of(
+            "html", "htm", "css", "js", "mjs", "json", "svg", "txt", "xml", "map"
+    );
+
+    private static final Set<String> SKIPPED_DIRS = Set.of("node_modules", ".git");
+
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private static final String BROTLI = "br";
+
+    private static final String GZIP = "gzip";
+
+    private final Path root = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR).toAbsolutePath().normalize();
+
+    private final Path precompressedRoot = Paths.get(AppConstant.STATIC_PRECOMPRESSED_DIR).toAbsolutePath().normalize();
+
+    @Resource
+    private StaticResourceConfig staticResourceConfig;
+
+    /**
+     * 文件绝对路径 -> 元数据
+     */
+    private Cache<Path, FileMetadata> metadataCache;
+
+    /**
+     * 文件绝对路径 -> 小文件内容及 gzip 副本，按字节数限制总大小
+     */
+    private Cache<Path, HotAsset> hotAssets;
+
+    @PostConstruct
+    public void init() {
+        metadataCache = Caffeine.newBuilder()
+                .maximumSize(staticResourceConfig.getMetadataCacheSize())
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+        hotAssets = Caffeine.newBuilder()
+                .maximumWeight(staticResourceConfig.getHotAssetCacheBytes())
+                .weigher((Path path, HotAsset asset) -> asset.weight())
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+    }
+
+    /**
+     * 发送应用生成目录下的文件
+     *
+     * @param relativePath 相对应用生成根目录的路径
+     */
+    public void serve(String relativePath, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path file = root.resolve(relativePath.replaceFirst("^/+", "")).normalize();
+        if (!file.startsWith(root)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        FileMetadata metadata = getMetadata(file);
+        if (metadata == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // 小文件直接从内存发送
+        HotAsset asset = getHotAsset(metadata);
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        boolean useRange = rangeHeader != null && ifRangeMatches(request, metadata.etag(), metadata.lastModified());
+        // 区间请求针对原始内容，不使用压缩副本
+        String encoding = useRange ? null : selectEncoding(metadata, asset, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String etag = encoding == null ? metadata.etag() : metadata.etagFor(encoding);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, metadata.lastModified());
+        // 预览内容随生成变化，每次使用前向服务端确认
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(metadata.contentType());
+        if (metadata.brotli() != null || metadata.gzip() != null || (asset != null && asset.gzip() != null)) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (isNotModified(request, etag, metadata.lastModified())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        boolean headOnly = "HEAD".equalsIgnoreCase(request.getMethod());
+        if (encoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+            if (GZIP.equals(encoding) && asset != null && asset.gzip() != null) {
+                write(asset.gzip(), 0, asset.gzip().length, response, headOnly);
+            } else {
+                Variant variant = BROTLI.equals(encoding) ? metadata.brotli() : metadata.gzip();
+                send(variant.path(), 0, variant.size(), request, response, headOnly);
+            }
+            return;
+        }
+        long[] range = useRange ? applyRange(rangeHeader, metadata.size(), response) : new long[]{0, metadata.size()};
+        if (range == null) {
+            return;
+        }
+        if (asset != null) {
+            write(asset.raw(), (int) range[0], (int) range[1], response, headOnly);
+        } else {
+            send(metadata.path(), range[0], range[1], request, response, headOnly);
+        }
+    }
+
+    /**
+     * 发送任意位置的文件，不经过元数据和内容缓存，支持条件请求和区间请求（断点续传）
+     * 内容类型等其他响应头由调用方设置
+     *
+     * @param file 文件
+     * @param etag 调用方提供的强 ETag（含引号），须随文件内容变化
+     */
+    public void serveFile(Path file, String etag, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        boolean useRange = rangeHeader != null && ifRangeMatches(request, etag, lastModified);
+        long[] range = useRange ? applyRange(rangeHeader, attrs.size(), response) : new long[]{0, attrs.size()};
+        if (range != null) {
+            send(file, range[0], range[1], request, response, "HEAD".equalsIgnoreCase(request.getMethod()));
+        }
+    }
+
+    /**
+     * 按 Range 请求头设置响应状态
+     *
+     * @return [起始位置, 长度]；区间无法满足时返回 null（已设置 416）
+     */
+    private static long[] applyRange(String rangeHeader, long size, HttpServletResponse response) {
+        long[] range = parseRange(rangeHeader, size);
+        if (range == null) {
+            return new long[]{0, size};
+        }
+        if (range.length == 0) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return null;
+        }
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + size);
+        return new long[]{range[0], range[1] - range[0] + 1};
+    }
+
+    /**
+     * 为目录下的文本类文件生成 gzip 预压缩副本，并使其元数据缓存失效
+     *
+     * @param dir 应用生成目录下的目录
+     */
+    public void precompress(File dir) {
+        Path start = dir.toPath().toAbsolutePath().normalize();
+        if (!start.startsWith(root) || !Files.isDirectory(start)) {
+            return;
+        }
+        int[] count = {0};
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                    if (!d.equals(start) && SKIPPED_DIRS.contains(d.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && attrs.size() >= staticResourceConfig.getMinCompressSize()
+                            && isCompressible(file) && gzipTo(file, attrs)) {
+                        count[0]++;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            log.warn("预压缩失败：{}，错误：{}", start, e.getMessage());
+        }
+        invalidate(dir);
+        if (count[0] > 0) {
+            log.info("已预压缩 {} 个文件：{}", count[0], start);
+        }
+    }
+
+    /**
+     * 使目录下所有文件的元数据缓存和内容缓存失效
+     *
+     * @param dir 目录
+     */
+    public void invalidate(File dir) {
+        Path prefix = dir.toPath().toAbsolutePath().normalize();
+        metadataCache.asMap().keySet().removeIf(path -> path.startsWith(prefix));
+        hotAssets.asMap().keySet().removeIf(path -> path.startsWith(prefix));
+    }
+
+    private FileMetadata getMetadata(Path file) throws IOException {
+        long now = System.nanoTime();
+        FileMetadata cached = metadataCache.getIfPresent(file);
+        if (cached != null
+                && now - cached.checkedNanos() < TimeUnit.MILLISECONDS.toNanos(staticResourceConfig.getRevalidateMillis())) {
+            return cached;
+        }
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            metadataCache.invalidate(file);
+            return null;
+        }
+        if (!attrs.isRegularFile()) {
+            metadataCache.invalidate(file);
+            return null;
+        }
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        FileMetadata metadata;
+        if (cached != null && cached.size() == attrs.size() && cached.lastModified() == lastModified) {
+            metadata = cached.withCheckedNanos(now);
+        } else {
+            metadata = load(file, attrs.size(), lastModified, now);
+        }
+        metadataCache.put(file, metadata);
+        return metadata;
+    }
+
+    private FileMetadata load(Path file, long size, long lastModified, long now) {
+        String hash = DigestUtil.sha256Hex(file.toFile()).substring(0, 32);
+        Variant brotli = findSibling(file, ".br", lastModified);
+        Variant gzip = findSibling(file, ".gz", lastModified);
+        if (gzip == null) {
+            Path shadow = precompressedPathOf(file);
+            try {
+                if (Files.isRegularFile(shadow) && Files.getLastModifiedTime(shadow).toMillis() == lastModified) {
+                    gzip = new Variant(shadow, Files.size(shadow));
+                }
+            } catch (IOException e) {
+                gzip = null;
+            }
+        }
+        return new FileMetadata(file, size, lastModified, hash, contentTypeOf(file), brotli, gzip, now);
+    }
+
+    /**
+     * 获取小文件的内存副本，超过大小上限或内容与元数据不一致时返回 null
+     */
+    private HotAsset getHotAsset(FileMetadata metadata) {
+        if (metadata.size() > staticResourceConfig.getHotAssetMaxFileSize()) {
+            return null;
+        }
+        HotAsset asset = hotAssets.getIfPresent(metadata.path());
+        if (asset != null && asset.hash().equals(metadata.hash())) {
+            return asset;
+        }
+        byte[] raw;
+        try {
+            raw = Files.readAllBytes(metadata.path());
+        } catch (IOException e) {
+            return null;
+        }
+        if (!DigestUtil.sha256Hex(raw).startsWith(metadata.hash())) {
+            // 文件在元数据加载后又被修改，本次从磁盘发送，下次请求重新加载元数据
+            metadataCache.invalidate(metadata.path());
+            return null;
+        }
+        asset = new HotAsset(metadata.hash(), raw, loadGzip(metadata, raw));
+        hotAssets.put(metadata.path(), asset);
+        return asset;
+    }
+
+    /**
+     * 优先使用磁盘上的 gzip 副本（与磁盘发送时内容一致），没有时在内存中压缩
+     */
+    private byte[] loadGzip(FileMetadata metadata, byte[] raw) {
+        try {
+            if (metadata.gzip() != null) {
+                return Files.readAllBytes(metadata.gzip().path());
+            }
+            if (raw.length < staticResourceConfig.getMinCompressSize() || !isCompressible(metadata.path())) {
+                return null;
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(raw.length / 3);
+            try (OutputStream out = newGzipOutputStream(buffer)) {
+                out.write(raw);
+            }
+            return buffer.size() < raw.length ? buffer.toByteArray() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 构建工具生成的同名压缩文件，不早于原文件时可用
+     */
+    private Variant findSibling(Path file, String suffix, long lastModified) {
+        Path sibling = file.resolveSibling(file.getFileName() + suffix);
+        try {
+            if (Files.isRegularFile(sibling) && Files.getLastModifiedTime(sibling).toMillis() >= lastModified) {
+                return new Variant(sibling, Files.size(sibling));
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * 压缩单个文件，副本的修改时间与原文件一致，据此判断副本是否过期
+     *
+     * @return 是否生成了新副本
+     */
+    private boolean gzipTo(Path file, BasicFileAttributes attrs) {
+        Path target = precompressedPathOf(file);
+        FileTime lastModified = attrs.lastModifiedTime();
+        try {
+            if (Files.isRegularFile(target) && Files.getLastModifiedTime(target).equals(lastModified)) {
+                return false;
+            }
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+            try {
+                try (OutputStream out = newGzipOutputStream(Files.newOutputStream(temp))) {
+                    Files.copy(file, out);
+                }
+                if (Files.size(temp) >= attrs.size()) {
+                    // 压缩无收益，不保留副本
+                    Files.deleteIfExists(target);
+                    return false;
+                }
+                Files.setLastModifiedTime(temp, lastModified);
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return true;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("压缩文件失败：{}，错误：{}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private static OutputStream newGzipOutputStream(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        };
+    }
+
+    private Path precompressedPathOf(Path file) {
+        return precompressedRoot.resolve(root.relativize(file) + ".gz");
+    }
+
+    /**
+     * 发送内存中的内容
+     */
+    private static void write(byte[] content, int offset, int length, HttpServletResponse response,
+                              boolean headOnly) throws IOException {
+        response.setContentLength(length);
+        if (!headOnly && length > 0) {
+            response.getOutputStream().write(content, offset, length);
+        }
+    }
+
+    /**
+     * 发送文件的指定区间，容器支持时交给 sendfile，否则通过 FileChannel.transferTo 发送
+     */
+    private void send(Path path, long start, long length, HttpServletRequest request,
+                      HttpServletResponse response, boolean headOnly) throws IOException {
+        response.setContentLengthLong(length);
+        if (headOnly || length == 0) {
+            return;
+        }
+        if (staticResourceConfig.isSendfile() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    // 文件在发送过程中被截断
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    /**
+     * 按客户端支持的编码选择响应编码，null 表示发送原始内容
+     */
+    private static String selectEncoding(FileMetadata metadata, HotAsset asset, String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        if (metadata.brotli() != null && accepts(acceptEncoding, BROTLI)) {
+            return BROTLI;
+        }
+        boolean gzipAvailable = metadata.gzip() != null || (asset != null && asset.gzip() != null);
+        if (gzipAvailable && accepts(acceptEncoding, GZIP)) {
+            return GZIP;
+        }
+        return null;
+    }
+
+    /**
+     * Accept-Encoding 是否接受指定编码（q=0 表示不接受）
+     */
+    private static boolean accepts(String acceptEncoding, String encoding) {
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            if (!parts[0].trim().equalsIgnoreCase(encoding)) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // 存在 If-None-Match 时忽略 If-Modified-Since
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince >= 0 && lastModified / 1000 * 1000 <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * If-Range 与当前内容一致时才按区间返回，否则返回完整内容
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return lastModified / 1000 == request.getDateHeader(HttpHeaders.IF_RANGE) / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析单区间 Range 请求头
+     *
+     * @return [起始, 结束]（含）；无法解析或多区间时返回 null（按完整内容返回）；区间无法满足时返回空数组
+     */
+    static long[] parseRange(String rangeHeader, long size) {
+        Matcher matcher = SINGLE_RANGE.matcher(rangeHeader.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        String first = matcher.group(1);
+        String last = matcher.group(2);
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return null;
+                }
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength == 0 || size == 0) {
+                    return new long[0];
+                }
+                return new long[]{Math.max(0, size - suffixLength), size - 1};
+            }
+            long start = Long.parseLong(first);
+            if (start >= size) {
+                return new long[0];
+            }
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            return end < start ? null : new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static boolean isCompressible(Path file) {
+        return COMPRESSIBLE_EXTENSIONS.contains(FileUtil.extName(file.getFileName().toString()).toLowerCase());
+    }
+
+    /**
+     * 按文件名确定内容类型，文本类内容附带 UTF-8 编码
+     */
+    private static String contentTypeOf(Path file) {
+        MediaType mediaType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        String subtype = mediaType.getSubtype();
+        boolean textual = "text".equals(mediaType.getType()) || subtype.equals("javascript")
+                || subtype.equals("json") || subtype.endsWith("+xml") || subtype.equals("xml");
+        return textual ? mediaType + ";charset=UTF-8" : mediaType.toString();
+    }
+
+    /**
+     * 预压缩副本
+     */
+    private record Variant(Path path, long size) {
+    }
+
+    /**
+     * 文件元数据，hash 为内容哈希（截断），checkedNanos 为最近一次检查文件状态的时间
+     */
+    private record FileMetadata(Path path, long size, long lastModified, String hash, String contentType,
+                                Variant brotli, Variant gzip, long checkedNanos) {
+
+        String etag() {
+            return "\"" + hash + "\"";
+        }
+
+        /**
+         * 压缩后的表示与原始内容字节不同，ETag 需要区分
+         */
+        String etagFor(String encoding) {
+            return "\"" + hash + "-" + encoding + "\"";
+        }
+
+        FileMetadata withCheckedNanos(long nanos) {
+            return new FileMetadata(path, size, lastModified, hash, contentType, brotli, gzip, nanos);
+        }
+    }
+
+    /**
+     * 内存中的文件内容，gzip 为空表示不值得压缩
+     */
+    private record HotAsset(String hash, byte[] raw, byte[] gzip) {
+
+        int weight() {
+            return raw.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.szh.aicodebackend.core.sse;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * SSE 事件帧缓冲区
+ * 将文本直接转义为 JSON 字符串并编码为 UTF-8 写入可复用的字节数组，
+ * 生成 data: {"d":"..."}\n\n 格式的事件，无需中间的 Map、JSON 对象和 String。
+ * 非线程安全，由调用方保证串行访问。
+ */
+public class SseFrameBuffer {
+
+    private static final byte[] FRAME_PREFIX = "data: {\"d\":\"".getBytes();
+
+    private static final byte[] FRAME_SUFFIX = "\"}\n\n".getBytes();
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+
+    /**
+     * 超过该大小的缓冲区不回收，避免个别超长输出长期占用内存
+     */
+    private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+
+    private static final int MAX_POOL_SIZE = 256;
+
+    private static final Queue<byte[]> POOL = new ConcurrentLinkedQueue<>();
+
+    private byte[] buffer;
+
+    private int length;
+
+    /**
+     * 被拆分到下一个片段的高位代理字符
+     */
+    private char pendingHighSurrogate;
+
+    private SseFrameBuffer(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 从池中获取缓冲区
+     */
+    public static SseFrameBuffer acquire() {
+        byte[] pooled = POOL.poll();
+        return new SseFrameBuffer(pooled != null ? pooled : new byte[INITIAL_CAPACITY]);
+    }
+
+    /**
+     * 归还缓冲区，归还后不可再使用
+     */
+    public void release() {
+        byte[] released = buffer;
+        buffer = null;
+        if (released != null && released.length <= MAX_POOLED_CAPACITY && POOL.size() < MAX_POOL_SIZE) {
+            POOL.offer(released);
+        }
+    }
+
+    /**
+     * 当前帧是否为空
+     */
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * 当前帧已占用字节数
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * 追加文本，必要时先写入帧头
+     */
+    public void append(String text) {
+        if (length == 0) {
+            write(FRAME_PREFIX);
+        }
+        int i = 0;
+        if (pendingHighSurrogate != 0) {
+            if (!text.isEmpty() && Character.isLowSurrogate(text.charAt(0))) {
+                writeCodePoint(Character.toCodePoint(pendingHighSurrogate, text.charAt(0)));
+                i = 1;
+            } else {
+                writeCodePoint(0xFFFD);
+            }
+            pendingHighSurrogate = 0;
+        }
+        int end = text.length();
+        // 代理对被拆分到两个片段时，留到下一个片段一起编码
+        if (end > i && Character.isHighSurrogate(text.charAt(end - 1))) {
+            pendingHighSurrogate = text.charAt(end - 1);
+            end--;
+        }
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            ensureCapacity(6);
+            if (c < 0x80) {
+                writeAsciiEscaped(c);
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                writeCodePoint(Character.toCodePoint(c, text.charAt(++i)));
+            } else if (Character.isSurrogate(c)) {
+                writeCodePoint(0xFFFD);
+            } else if (c == '\u2028' || c == '\u2029') {
+                // 行分隔符在部分 JS 解析器中不合法，统一转义
+                writeUnicodeEscape(c);
+            } else {
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * 写入帧尾并取出完整的事件字节，之后缓冲区重置为空帧
+     *
+     * @param endOfStream 是否为最后一帧，未配对的代理字符替换为 U+FFFD
+     * @return 事件字节，当前帧为空时返回 null
+     */
+    public byte[] drainFrame(boolean endOfStream) {
+        if (endOfStream && pendingHighSurrogate != 0) {
+            if (length == 0) {
+                write(FRAME_PREFIX);
+            }
+            writeCodePoint(0xFFFD);
+            pendingHighSurrogate = 0;
+        }
+        if (length == 0) {
+            return null;
+        }
+        write(FRAME_SUFFIX);
+        // 事件在发送前可能被缓存，需要拷贝一份，缓冲区本身继续复用
+        byte[] frame = Arrays.copyOf(buffer, length);
+        length = 0;
+        return frame;
+    }
+
+    private void writeAsciiEscaped(char c) {
+        switch (c) {
+            case '"' -> writeEscape('"');
+            case '\\' -> writeEscape('\\');
+            case '\n' -> writeEscape('n');
+            case '\r' -> writeEscape('r');
+            case '\t' -> writeEscape('t');
+            case '\b' -> writeEscape('b');
+            case '\f' -> writeEscape('f');
+            default -> {
+                if (c < 0x20) {
+                    writeUnicodeEscape(c);
+                } else {
+                    buffer[length++] = (byte) c;
+                }
+            }
+        }
+    }
+
+    private void writeEscape(char c) {
+        ensureCapacity(2);
+        buffer[length++] = '\\';
+        buffer[length++] = (byte) c;
+    }
+
+    private void writeUnicodeEscape(char c) {
+        ensureCapacity(6);
+        buffer[length++] = '\\';
+        buffer[length++] = 'u';
+        buffer[length++] = HEX[(c >> 12) & 0xF];
+        buffer[length++] = HEX[(c >> 8) & 0xF];
+        buffer[length++] = HEX[(c >> 4) & 0xF];
+        buffer[length++] = HEX[c & 0xF];
+    }
+
+    private void writeCodePoint(int codePoint) {
+        ensureCapacity(4);
+        if (codePoint < 0x10000) {
+            buffer[length++] = (byte) (0xE0 | (codePoint >> 12));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            return;
+        }
+        buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+        buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    /**
+     * 保证剩余空间（额外预留帧尾）
+     */
+    private void ensureCapacity(int extra) {
+        int required = length + extra + FRAME_SUFFIX.length;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, required));
+        }
+    }
+}
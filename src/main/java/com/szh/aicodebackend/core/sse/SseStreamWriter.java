@@ -0,0 +1,172 @@
+package com.szh.aicodebackend.core.sse;
+
+import com.szh.aicodebackend.config.SseConfig;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscription;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE 流写出器
+ * 将文本流直接编码为 SSE 字节帧写出，并在时间窗口或字节阈值内合并多个 token 为一个事件，减少写出次数
+ */
+@Slf4j
+@Component
+public class SseStreamWriter {
+
+    /**
+     * 结束事件
+     */
+    private static final byte[] DONE_EVENT = "event:done\ndata:\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final MediaType EVENT_STREAM_UTF8 = new MediaType(MediaType.TEXT_EVENT_STREAM, StandardCharsets.UTF_8);
+
+    @Resource
+    private SseConfig sseConfig;
+
+    /**
+     * 订阅文本流并写出为 SSE 事件，流结束时发送 done 事件
+     *
+     * @param contentFlux 文本流
+     * @return 响应发射器
+     */
+    public ResponseBodyEmitter write(Flux<String> contentFlux) {
+        EventStreamEmitter emitter = new EventStreamEmitter();
+        CoalescingSubscriber subscriber = new CoalescingSubscriber(emitter,
+                sseConfig.getFlushIntervalMillis(), sseConfig.getFlushBytes());
+        // 客户端断开或超时时取消上游，停止生成
+        emitter.onCompletion(subscriber::dispose);
+        emitter.onTimeout(subscriber::dispose);
+        emitter.onError(error -> subscriber.dispose());
+        contentFlux.subscribe(subscriber);
+        return emitter;
+    }
+
+    /**
+     * 直接写出原始字节的 SSE 发射器
+     */
+    private static class EventStreamEmitter extends ResponseBodyEmitter {
+
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            outputMessage.getHeaders().setContentType(EVENT_STREAM_UTF8);
+        }
+    }
+
+    /**
+     * 合并 token 的订阅者，onNext 与定时刷新可能在不同线程，统一在实例锁内访问缓冲区
+     */
+    private static class CoalescingSubscriber extends BaseSubscriber<String> {
+
+        private final ResponseBodyEmitter emitter;
+
+        private final long flushIntervalMillis;
+
+        private final int flushBytes;
+
+        private SseFrameBuffer frameBuffer = SseFrameBuffer.acquire();
+
+        private Disposable scheduledFlush;
+
+        private CoalescingSubscriber(ResponseBodyEmitter emitter, long flushIntervalMillis, int flushBytes) {
+            this.emitter = emitter;
+            this.flushIntervalMillis = flushIntervalMillis;
+            this.flushBytes = flushBytes;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        protected synchronized void hookOnNext(String chunk) {
+            if (frameBuffer == null) {
+                return;
+            }
+            boolean newFrame = frameBuffer.isEmpty();
+            frameBuffer.append(chunk);
+            if (flushIntervalMillis <= 0 || frameBuffer.size() >= flushBytes) {
+                flush(false);
+            } else if (newFrame) {
+                scheduledFlush = Schedulers.parallel().schedule(this::scheduledFlush, flushIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        @Override
+        protected synchronized void hookOnComplete() {
+            if (frameBuffer == null) {
+                return;
+            }
+            flush(true);
+            if (send(DONE_EVENT)) {
+                emitter.complete();
+            }
+        }
+
+        @Override
+        protected synchronized void hookOnError(Throwable throwable) {
+            if (frameBuffer == null) {
+                return;
+            }
+            flush(true);
+            emitter.completeWithError(throwable);
+        }
+
+        @Override
+        protected synchronized void hookFinally(SignalType type) {
+            cancelScheduledFlush();
+            if (frameBuffer != null) {
+                frameBuffer.release();
+                frameBuffer = null;
+            }
+        }
+
+        private synchronized void scheduledFlush() {
+            scheduledFlush = null;
+            if (frameBuffer != null) {
+                flush(false);
+            }
+        }
+
+        private void flush(boolean endOfStream) {
+            cancelScheduledFlush();
+            byte[] frame = frameBuffer.drainFrame(endOfStream);
+            if (frame != null) {
+                send(frame);
+            }
+        }
+
+        private boolean send(byte[] bytes) {
+            try {
+                emitter.send(bytes, MediaType.APPLICATION_OCTET_STREAM);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开，停止订阅
+                log.debug("SSE 写出失败，取消生成：{}", e.getMessage());
+                dispose();
+                return false;
+            }
+        }
+
+        private void cancelScheduledFlush() {
+            if (scheduledFlush != null) {
+                scheduledFlush.dispose();
+                scheduledFlush = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.szh.aicodebackend.core.vfs;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 项目目录结构索引
+ * 由 {@link ProjectFileSystem} 在文件新增、删除时增量维护，条目预先计算好深度和文件名并按（深度，路径）有序存放，
+ * 渲染目录结构只需顺序遍历一次；渲染结果按目录缓存，索引变化后失效
+ */
+public class DirectoryIndex {
+
+    /**
+     * 需要忽略的文件和目录
+     */
+    private static final Set<String> IGNORED_NAMES = Set.of(
+            "node_modules", ".git", "dist", "build", ".DS_Store",
+            ".env", "target", ".mvn", ".idea", ".vscode", "coverage"
+    );
+
+    /**
+     * 需要忽略的文件扩展名
+     */
+    private static final String[] IGNORED_EXTENSIONS = {".log", ".tmp", ".cache", ".lock"};
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::depth)
+            .thenComparing(Entry::path);
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 目录键 -> 渲染结果
+     */
+    private final Map<String, Rendered> renderCache = new ConcurrentHashMap<>();
+
+    /**
+     * 登记文件，被忽略的路径不进入索引
+     *
+     * @param key 文件路径键
+     */
+    public void add(String key) {
+        if (shouldIgnorePath(key)) {
+            return;
+        }
+        if (entries.add(new Entry(depthOf(key), key, key.substring(key.lastIndexOf('/') + 1)))) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * 移除文件
+     *
+     * @param key 文件路径键
+     */
+    public void remove(String key) {
+        if (entries.remove(new Entry(depthOf(key), key, null))) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * 渲染目录结构，每行一个文件，按深度缩进
+     *
+     * @param dirKey 目录键，根目录为空串
+     * @return 目录结构文本
+     */
+    public String render(String dirKey) {
+        long current = version.get();
+        Rendered cached = renderCache.get(dirKey);
+        if (cached != null && cached.version() == current) {
+            return cached.text();
+        }
+        String prefix = dirKey.isEmpty() ? "" : dirKey + "/";
+        int baseDepth = dirKey.isEmpty() ? 0 : depthOf(dirKey) + 1;
+        StringBuilder structure = new StringBuilder();
+        for (Entry entry : entries) {
+            if (entry.depth() < baseDepth || !entry.path().startsWith(prefix)) {
+                continue;
+            }
+            structure.append("  ".repeat(entry.depth() - baseDepth)).append(entry.name()).append('\n');
+        }
+        String text = structure.toString();
+        renderCache.put(dirKey, new Rendered(current, text));
+        return text;
+    }
+
+    /**
+     * 路径深度，根目录下的文件为 0
+     */
+    static int depthOf(String key) {
+        int depth = 0;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * 路径中任意一级命中忽略规则即忽略
+     */
+    static boolean shouldIgnorePath(String key) {
+        int start = 0;
+        while (start <= key.length()) {
+            int end = key.indexOf('/', start);
+            if (end < 0) {
+                end = key.length();
+            }
+            if (shouldIgnore(key.substring(start, end))) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static boolean shouldIgnore(String fileName) {
+        if (IGNORED_NAMES.contains(fileName)) {
+            return true;
+        }
+        for (String extension : IGNORED_EXTENSIONS) {
+            if (fileName.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Entry(int depth, String path, String name) {
+    }
+
+    private record Rendered(long version, String text) {
+    }
+}
@@ -0,0 +1,288 @@
+package com.szh.aicodebackend.core.vfs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 单个项目的内存文件系统（写回模式）
+ * 工具调用的读写都在内存中完成，文件内容首次访问时才从磁盘加载，修改只标记脏位，
+ * 删除记录为墓碑，由 {@link #flush()} 统一写回磁盘；目录结构由 {@link DirectoryIndex} 增量维护。
+ * 路径统一使用相对项目根目录、以 / 分隔的形式作为键
+ */
+public class ProjectFileSystem {
+
+    /**
+     * 扫描磁盘时跳过的目录，其中的文件按需从磁盘直读
+     */
+    private static final Set<String> SKIPPED_DIRS = Set.of("node_modules", ".git", "dist");
+
+    private final Path root;
+
+    /**
+     * 相对路径 -> 文件缓冲，按路径有序
+     */
+    private final ConcurrentSkipListMap<String, FileBuffer> files = new ConcurrentSkipListMap<>();
+
+    /**
+     * 已删除但尚未写回磁盘的文件
+     */
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+
+    private final DirectoryIndex directoryIndex = new DirectoryIndex();
+
+    private volatile boolean scanned;
+
+    public ProjectFileSystem(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * 将工具传入的路径转换为项目内的相对路径键
+     *
+     * @param path 相对路径或项目内的绝对路径
+     * @return 路径键，根目录为空串；路径超出项目目录时返回 null
+     */
+    public String toKey(String path) {
+        Path p = Paths.get(path == null ? "" : path).normalize();
+        if (p.isAbsolute()) {
+            if (!p.startsWith(root)) {
+                return null;
+            }
+            p = root.relativize(p);
+        }
+        if (p.startsWith("..")) {
+            return null;
+        }
+        return p.toString().replace('\\', '/');
+    }
+
+    /**
+     * 是否为已存在的文件
+     */
+    public boolean isFile(String key) {
+        return buffer(key) != null;
+    }
+
+    /**
+     * 是否为已存在的目录
+     */
+    public boolean isDirectory(String key) throws IOException {
+        if (key.isEmpty()) {
+            return true;
+        }
+        ensureScanned();
+        String prefix = key + "/";
+        String next = files.ceilingKey(prefix);
+        if (next != null && next.startsWith(prefix)) {
+            return true;
+        }
+        return Files.isDirectory(root.resolve(key)) && !hasDeletedUnder(prefix);
+    }
+
+    /**
+     * 读取文件内容
+     *
+     * @return 文件内容，文件不存在时返回 null
+     */
+    public String read(String key) throws IOException {
+        FileBuffer buffer = buffer(key);
+        return buffer == null ? null : buffer.read(root.resolve(key));
+    }
+
+    /**
+     * 写入文件内容（仅写内存）
+     */
+    public void write(String key, String content) {
+        deleted.remove(key);
+        files.computeIfAbsent(key, k -> new FileBuffer()).write(content);
+        directoryIndex.add(key);
+    }
+
+    /**
+     * 删除文件（仅记录墓碑）
+     *
+     * @return 文件原本是否存在
+     */
+    public boolean delete(String key) {
+        if (!isFile(key)) {
+            return false;
+        }
+        // 先记墓碑，避免移除后被按需加载重新从磁盘补回
+        deleted.add(key);
+        files.remove(key);
+        directoryIndex.remove(key);
+        return true;
+    }
+
+    /**
+     * 渲染目录结构（不含被忽略的文件）
+     *
+     * @param dirKey 目录键，根目录为空串
+     * @return 目录结构文本，每行一个文件
+     */
+    public String renderTree(String dirKey) throws IOException {
+        ensureScanned();
+        return directoryIndex.render(dirKey);
+    }
+
+    /**
+     * 将修改写回磁盘：每个文件先写临时文件再原子替换，构建进程不会读到写了一半的文件
+     *
+     * @return 写回的文件数（含删除）
+     */
+    public synchronized int flush() throws IOException {
+        int count = 0;
+        for (String key : List.copyOf(deleted)) {
+            Files.deleteIfExists(root.resolve(key));
+            deleted.remove(key);
+            count++;
+        }
+        for (Map.Entry<String, FileBuffer> entry : files.entrySet()) {
+            String content = entry.getValue().takeDirty();
+            if (content == null) {
+                continue;
+            }
+            try {
+                writeAtomically(root.resolve(entry.getKey()), content);
+            } catch (IOException e) {
+                entry.getValue().markDirty();
+                throw e;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private FileBuffer buffer(String key) {
+        if (key.isEmpty() || deleted.contains(key)) {
+            return null;
+        }
+        FileBuffer buffer = files.get(key);
+        if (buffer != null) {
+            return buffer;
+        }
+        // 未扫描到的文件（扫描前或位于跳过的目录中）按需从磁盘补充
+        if (Files.isRegularFile(root.resolve(key))) {
+            directoryIndex.add(key);
+            return files.computeIfAbsent(key, k -> new FileBuffer());
+        }
+        return null;
+    }
+
+    private boolean hasDeletedUnder(String prefix) {
+        for (String key : deleted) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 首次列目录时扫描磁盘上的文件路径，只登记路径，不读取内容
+     */
+    private void ensureScanned() throws IOException {
+        if (scanned) {
+            return;
+        }
+        synchronized (this) {
+            if (scanned) {
+                return;
+            }
+            if (Files.isDirectory(root)) {
+                Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        if (!dir.equals(root) && SKIPPED_DIRS.contains(dir.getFileName().toString())) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile()) {
+                            String key = root.relativize(file).toString().replace('\\', '/');
+                            if (!deleted.contains(key)) {
+                                files.putIfAbsent(key, new FileBuffer());
+                                directoryIndex.add(key);
+                            }
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            scanned = true;
+        }
+    }
+
+    private static void writeAtomically(Path target, String content) throws IOException {
+        Path parent = target.getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "." + target.getFileName(), ".tmp");
+        try {
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 文件缓冲，content 为 null 表示尚未从磁盘加载
+     */
+    private static final class FileBuffer {
+
+        private String content;
+
+        private volatile boolean dirty;
+
+        synchronized String read(Path diskPath) throws IOException {
+            if (content == null) {
+                content = Files.readString(diskPath, StandardCharsets.UTF_8);
+            }
+            return content;
+        }
+
+        synchronized void write(String newContent) {
+            content = newContent;
+            dirty = true;
+        }
+
+        synchronized void markDirty() {
+            dirty = true;
+        }
+
+        /**
+         * 取出待写回的内容并清除脏位，无修改时返回 null
+         */
+        synchronized String takeDirty() {
+            if (!dirty) {
+                return null;
+            }
+            dirty = false;
+            return content;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.szh.aicodebackend.core.vfs;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.szh.aicodebackend.constant.AppConstant;
+import com.szh.aicodebackend.core.serving.StaticFileServer;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Vue 项目内存文件系统管理
+ * 每个应用在生成过程中持有一个 {@link ProjectFileSystem}，工具调用全部走内存，
+ * 生成结束（构建前）由门面类写回磁盘并释放；长时间无访问的实例被淘汰时也会写回
+ */
+@Slf4j
+@Component
+public class ProjectFileSystemManager {
+
+    @Resource
+    private StaticFileServer staticFileServer;
+
+    private final Cache<Long, ProjectFileSystem> fileSystems = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .removalListener((Long appId, ProjectFileSystem fileSystem, RemovalCause cause) -> {
+                if (cause.wasEvicted() && fileSystem != null) {
+                    flushQuietly(appId, fileSystem);
+                }
+            })
+            .build();
+
+    /**
+     * 获取应用的内存文件系统，不存在则创建（文件内容按需从磁盘加载）
+     *
+     * @param appId 应用 ID
+     * @return 内存文件系统
+     */
+    public ProjectFileSystem get(long appId) {
+        return fileSystems.get(appId, id ->
+                new ProjectFileSystem(Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, "vue_project_" + id)));
+    }
+
+    /**
+     * 将应用的修改写回磁盘，成功后释放内存；写回失败时保留内存中的修改，可再次写回
+     *
+     * @param appId 应用 ID
+     * @return 是否写回成功（没有内存文件系统时视为成功）
+     */
+    public boolean flushAndRelease(long appId) {
+        ProjectFileSystem remaining = fileSystems.asMap().computeIfPresent(appId,
+                (id, fileSystem) -> flushQuietly(id, fileSystem) ? null : fileSystem);
+        return remaining == null;
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        fileSystems.asMap().forEach(this::flushQuietly);
+        fileSystems.invalidateAll();
+    }
+
+    private boolean flushQuietly(Long appId, ProjectFileSystem fileSystem) {
+        try {
+            int count = fileSystem.flush();
+            staticFileServer.invalidate(fileSystem.getRoot().toFile());
+            log.info("项目文件写回磁盘完成，appId: {}，文件数: {}", appId, count);
+            return true;
+        } catch (IOException e) {
+            log.error("项目文件写回磁盘失败，appId: {}，错误: {}", appId, e.getMessage(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.szh.aicodebackend.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.json.JSONUtil;
+import com.szh.aicodebackend.config.ChatHistoryWriteBufferConfig;
+import com.szh.aicodebackend.constant.AppConstant;
+import com.szh.aicodebackend.mapper.ChatHistoryMapper;
+import com.szh.aicodebackend.model.entity.ChatHistory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 对话历史写缓冲
+ * 消息先进入有界队列，由后台线程按条数或时间攒批后多行插入数据库；
+ * 未落库的消息按应用保留一份，供查询时合并，保证读到自己刚写入的消息。
+ * 队列已满时调用方同步写入，关闭时剩余消息全部落库，落库失败则写入本地文件并在下次启动时导入。
+ */
+@Slf4j
+@Component
+public class ChatHistoryWriteBuffer {
+
+    private static final String FALLBACK_FILE_SUFFIX = ".jsonl";
+
+    @Resource
+    private ChatHistoryMapper chatHistoryMapper;
+
+    @Resource
+    private ChatHistoryWriteBufferConfig chatHistoryWriteBufferConfig;
+
+    /**
+     * 应用 id -> 尚未落库的消息
+     */
+    private final Map<Long, List<ChatHistory>> pendingMessages = new ConcurrentHashMap<>();
+
+    private BlockingQueue<ChatHistory> queue;
+
+    /**
+     * 落库与丢弃互斥，丢弃返回后不会再有包含被丢弃消息的批次写入数据库
+     */
+    private final Object flushLock = new Object();
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(chatHistoryWriteBufferConfig.getCapacity());
+        replayFallbackFiles();
+        running = true;
+        flusher = Thread.ofPlatform().name("chat-history-flusher").daemon().start(this::flushLoop);
+    }
+
+    /**
+     * 停止接收并将剩余消息全部落库
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<ChatHistory> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (List<ChatHistory> batch : ListUtil.partition(remaining, chatHistoryWriteBufferConfig.getBatchSize())) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * 写入一条消息，id 与时间在入队时确定，保证落库后顺序不变。
+     * 时间截断到秒，与 createTime 列（DATETIME）的精度一致，否则落库时的进位会让游标分页漏掉消息；
+     * 同一秒内的消息按 id（雪花 id，递增）排序
+     *
+     * @param chatHistory 对话消息
+     * @return 是否写入成功
+     */
+    public boolean add(ChatHistory chatHistory) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        chatHistory.setId(IdUtil.getSnowflakeNextId());
+        chatHistory.setCreateTime(now);
+        chatHistory.setUpdateTime(now);
+        chatHistory.setIsDelete(0);
+        if (!running) {
+            return chatHistoryMapper.insert(chatHistory) > 0;
+        }
+        addPending(chatHistory);
+        boolean offered;
+        try {
+            offered = queue.offer(chatHistory, chatHistoryWriteBufferConfig.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            offered = false;
+        }
+        // 队列已满或入队时恰好关闭（刷盘线程可能已退出），由调用方同步写入
+        if (!offered || (!running && queue.remove(chatHistory))) {
+            if (!offered) {
+                log.warn("对话历史写缓冲已满，同步写入，appId: {}", chatHistory.getAppId());
+            }
+            removePending(chatHistory);
+            return chatHistoryMapper.insert(chatHistory) > 0;
+        }
+        return true;
+    }
+
+    /**
+     * 获取应用下尚未落库的消息
+     *
+     * @param appId 应用 id
+     * @return 消息列表（按写入顺序）
+     */
+    public List<ChatHistory> getPending(Long appId) {
+        List<ChatHistory> pending = pendingMessages.get(appId);
+        return pending == null ? Collections.emptyList() : new ArrayList<>(pending);
+    }
+
+    /**
+     * 丢弃应用下尚未落库的消息，删除对话历史或应用前调用，避免删除后被重新写入
+     *
+     * @param appId 应用 id
+     */
+    public void discardPending(Long appId) {
+        List<ChatHistory> discarded = discardIf(chatHistory -> appId.equals(chatHistory.getAppId()));
+        if (!discarded.isEmpty()) {
+            log.info("丢弃未落库的对话历史 {} 条，appId: {}", discarded.size(), appId);
+        }
+    }
+
+    /**
+     * 丢弃一条尚未落库的消息
+     *
+     * @param id 消息 id
+     * @return 被丢弃的消息，已落库或不存在时返回 null
+     */
+    public ChatHistory discardPendingMessage(Long id) {
+        List<ChatHistory> discarded = discardIf(chatHistory -> id.equals(chatHistory.getId()));
+        return discarded.isEmpty() ? null : discarded.get(0);
+    }
+
+    private List<ChatHistory> discardIf(Predicate<ChatHistory> filter) {
+        List<ChatHistory> discarded = new ArrayList<>();
+        synchronized (flushLock) {
+            queue.removeIf(filter);
+            for (List<ChatHistory> pending : pendingMessages.values()) {
+                for (ChatHistory chatHistory : pending) {
+                    if (filter.test(chatHistory)) {
+                        discarded.add(chatHistory);
+                    }
+                }
+            }
+            discarded.forEach(this::removePending);
+        }
+        return discarded;
+    }
+
+    private void flushLoop() {
+        int batchSize = chatHistoryWriteBufferConfig.getBatchSize();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(chatHistoryWriteBufferConfig.getFlushIntervalMillis());
+        List<ChatHistory> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ChatHistory first = queue.poll(intervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 攒批：达到条数或时间窗口结束即刷盘
+                long deadline = System.nanoTime() + intervalNanos;
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    ChatHistory next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 多行插入一批消息，失败时写入本地文件；已被丢弃（不再处于待落库状态）的消息跳过
+     */
+    private void flush(List<ChatHistory> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            List<ChatHistory> toInsert = batch.stream().filter(this::isPending).toList();
+            if (toInsert.isEmpty()) {
+                return;
+            }
+            try {
+                chatHistoryMapper.insertBatch(toInsert);
+            } catch (Exception e) {
+                log.error("批量写入对话历史失败，共 {} 条，写入本地文件：{}", toInsert.size(), e.getMessage(), e);
+                writeFallbackFile(toInsert);
+            } finally {
+                toInsert.forEach(this::removePending);
+            }
+        }
+    }
+
+    private boolean isPending(ChatHistory chatHistory) {
+        List<ChatHistory> pending = pendingMessages.get(chatHistory.getAppId());
+        return pending != null && pending.contains(chatHistory);
+    }
+
+    private void addPending(ChatHistory chatHistory) {
+        pendingMessages.compute(chatHistory.getAppId(), (appId, list) -> {
+            List<ChatHistory> pending = list == null ? new CopyOnWriteArrayList<>() : list;
+            pending.add(chatHistory);
+            return pending;
+        });
+    }
+
+    private void removePending(ChatHistory chatHistory) {
+        pendingMessages.computeIfPresent(chatHistory.getAppId(), (appId, list) -> {
+            list.remove(chatHistory);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private void writeFallbackFile(List<ChatHistory> batch) {
+        List<String> lines = batch.stream().map(JSONUtil::toJsonStr).toList();
+        File file = new File(AppConstant.CHAT_HISTORY_FALLBACK_DIR,
+                "chat_history_" + IdUtil.getSnowflakeNextIdStr() + FALLBACK_FILE_SUFFIX);
+        try {
+            FileUtil.writeLines(lines, file, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            log.error("对话历史写入本地文件失败，丢失 {} 条：{}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 导入上次未能落库的消息，导入成功后删除文件
+     */
+    private void replayFallbackFiles() {
+        File[] files = FileUtil.ls(FileUtil.mkdir(AppConstant.CHAT_HISTORY_FALLBACK_DIR).getPath());
+        for (File file : files) {
+            if (!file.getName().endsWith(FALLBACK_FILE_SUFFIX)) {
+                continue;
+            }
+            try {
+                List<ChatHistory> historyList = FileUtil.readLines(file, StandardCharsets.UTF_8).stream()
+                        .filter(line -> !line.isBlank())
+                        .map(line -> JSONUtil.toBean(line, ChatHistory.class))
+                        .toList();
+                if (CollUtil.isNotEmpty(historyList)) {
+                    for (List<ChatHistory> batch : ListUtil.partition(historyList, chatHistoryWriteBufferConfig.getBatchSize())) {
+                        chatHistoryMapper.insertBatch(batch);
+                    }
+                }
+                FileUtil.del(file);
+                log.info("已导入未落库的对话历史 {} 条：{}", historyList.size(), file.getName());
+            } catch (Exception e) {
+                log.error("导入对话历史文件失败：{}", file.getName(), e);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.szh.aicodebackend.manager;
 
 import com.qcloud.cos.COSClient;
+import com.qcloud.cos.model.ObjectMetadata;
 import com.qcloud.cos.model.PutObjectRequest;
 import com.qcloud.cos.model.PutObjectResult;
 import com.szh.aicodebackend.config.CosClientConfig;
@@ -8,6 +9,7 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 
 /**
@@ -57,4 +59,29 @@ public class CosManager {
             return null;
         }
     }
+
+    /**
+     * 上传内存中的数据到 COS 并返回访问 URL
+     *
+     * @param key         COS对象键（完整路径）
+     * @param data        文件内容
+     * @param contentType 内容类型
+     * @return 文件的访问URL，失败返回null
+     */
+    public String uploadBytes(String key, byte[] data, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(data.length);
+        metadata.setContentType(contentType);
+        PutObjectRequest putObjectRequest = new PutObjectRequest(cosClientConfig.getBucket(), key,
+                new ByteArrayInputStream(data), metadata);
+        PutObjectResult result = cosClient.putObject(putObjectRequest);
+        if (result != null) {
+            String url = String.format("%s%s", cosClientConfig.getHost(), key);
+            log.info("数据上传COS成功: {} 字节 -> {}", data.length, url);
+            return url;
+        } else {
+            log.error("数据上传COS失败，返回结果为空");
+            return null;
+        }
+    }
 }
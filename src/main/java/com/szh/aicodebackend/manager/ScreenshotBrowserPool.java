@@ -0,0 +1,163 @@
+package com.szh.aicodebackend.manager;
+
+import com.szh.aicodebackend.config.ScreenshotConfig;
+import com.szh.aicodebackend.exception.BusinessException;
+import com.szh.aicodebackend.exception.ErrorCode;
+import com.szh.aicodebackend.utils.WebScreenshotUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 截图浏览器池
+ * 每个截图任务独占一个浏览器实例，实例数有上限；等待中的任务数也有上限，超过后直接拒绝。
+ * 借出前检查实例是否存活，使用达到一定次数或出现驱动异常后销毁重建
+ */
+@Slf4j
+@Component
+public class ScreenshotBrowserPool {
+
+    @Resource
+    private ScreenshotConfig screenshotConfig;
+
+    /**
+     * 空闲实例，后进先出，优先复用最近使用过的实例
+     */
+    private final BlockingDeque<PooledBrowser> idleBrowsers = new LinkedBlockingDeque<>();
+
+    private final Set<PooledBrowser> allBrowsers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger waitingTasks = new AtomicInteger();
+
+    private Semaphore permits;
+
+    private volatile boolean closed;
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(1, screenshotConfig.getPoolSize()), true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        closed = true;
+        allBrowsers.forEach(this::quit);
+        idleBrowsers.clear();
+    }
+
+    /**
+     * 借用浏览器执行操作，结束后归还
+     *
+     * @param action 使用浏览器的操作
+     * @return 操作结果
+     */
+    public <T> T execute(Function<WebDriver, T> action) {
+        if (waitingTasks.incrementAndGet() > screenshotConfig.getQueueCapacity()) {
+            waitingTasks.decrementAndGet();
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "截图任务过多，请稍后重试");
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(screenshotConfig.getLeaseTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "等待截图浏览器被中断");
+        } finally {
+            waitingTasks.decrementAndGet();
+        }
+        if (!acquired) {
+            throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, "等待截图浏览器超时");
+        }
+        PooledBrowser browser = null;
+        boolean healthy = true;
+        try {
+            browser = borrow();
+            return action.apply(browser.driver);
+        } catch (WebDriverException e) {
+            healthy = false;
+            throw e;
+        } finally {
+            if (browser != null) {
+                giveBack(browser, healthy);
+            }
+            permits.release();
+        }
+    }
+
+    private PooledBrowser borrow() {
+        PooledBrowser browser;
+        while ((browser = idleBrowsers.pollFirst()) != null) {
+            if (isAlive(browser)) {
+                return browser;
+            }
+            log.warn("截图浏览器已失效，重新创建");
+            quit(browser);
+        }
+        browser = new PooledBrowser(WebScreenshotUtils.createChromeDriver(
+                screenshotConfig.getWidth(), screenshotConfig.getHeight()));
+        allBrowsers.add(browser);
+        log.info("创建截图浏览器，当前实例数：{}", allBrowsers.size());
+        return browser;
+    }
+
+    private void giveBack(PooledBrowser browser, boolean healthy) {
+        browser.uses++;
+        if (closed || !healthy || browser.uses >= screenshotConfig.getMaxUsesPerBrowser()) {
+            quit(browser);
+            return;
+        }
+        try {
+            // 清空页面，释放上一个页面占用的资源
+            browser.driver.get("about:blank");
+        } catch (Exception e) {
+            quit(browser);
+            return;
+        }
+        idleBrowsers.offerFirst(browser);
+    }
+
+    private boolean isAlive(PooledBrowser browser) {
+        try {
+            browser.driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private void quit(PooledBrowser browser) {
+        allBrowsers.remove(browser);
+        try {
+            browser.driver.quit();
+        } catch (Exception e) {
+            log.warn("关闭截图浏览器失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 池中的浏览器实例，同一时间只被一个任务使用
+     */
+    private static class PooledBrowser {
+
+        private final WebDriver driver;
+
+        private int uses;
+
+        private PooledBrowser(WebDriver driver) {
+            this.driver = driver;
+        }
+    }
+}
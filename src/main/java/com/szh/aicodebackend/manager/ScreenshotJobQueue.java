@@ -0,0 +1,362 @@
+package com.szh.aicodebackend.manager;
+
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.szh.aicodebackend.config.ScreenshotConfig;
+import com.szh.aicodebackend.constant.RedisConstant;
+import com.szh.aicodebackend.mapper.AppMapper;
+import com.szh.aicodebackend.model.entity.App;
+import com.szh.aicodebackend.service.ScreenshotService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 应用封面截图任务队列
+ * 每个应用同一时间只保留最新的一个任务，提交后经过防抖时间才执行，期间重复部署只会更新任务；
+ * 部署内容哈希与当前封面对应的哈希一致时跳过截图。失败按指数退避重试，待执行任务同时保存在 Redis，重启后继续执行。
+ * 截图结果由后台线程攒批后一次性更新应用封面
+ */
+@Slf4j
+@Component
+public class ScreenshotJobQueue {
+
+    @Resource
+    private ScreenshotService screenshotService;
+
+    @Resource
+    private ScreenshotConfig screenshotConfig;
+
+    @Resource
+    private AppMapper appMapper;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 应用 id -> 最新的截图任务
+     */
+    private final Map<Long, ScreenshotJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 按到期时间排序的待执行任务，任务被新提交覆盖后旧的调度条目自动作废
+     */
+    private final DelayQueue<ScheduledJob> schedule = new DelayQueue<>();
+
+    /**
+     * 正在截图的应用，同一应用不并发截图
+     */
+    private final Set<Long> runningApps = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 应用 id -> 待写入数据库的封面
+     */
+    private final Map<Long, CoverUpdate> coverUpdates = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private Thread coverFlusher;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        restorePersistedJobs();
+        int workerCount = Math.max(1, screenshotConfig.getPoolSize());
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofPlatform().name("screenshot-worker-" + i).daemon().start(this::workLoop));
+        }
+        coverFlusher = Thread.ofPlatform().name("screenshot-cover-flusher").daemon().start(this::coverFlushLoop);
+    }
+
+    /**
+     * 停止执行任务并写入已完成的封面，未执行的任务保留在 Redis 中
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        coverFlusher.interrupt();
+        try {
+            for (Thread worker : workers) {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            }
+            coverFlusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushCovers();
+    }
+
+    /**
+     * 提交截图任务，覆盖该应用尚未执行的任务
+     *
+     * @param appId       应用 id
+     * @param webUrl      部署地址
+     * @param contentHash 部署内容哈希，为空表示无法判断内容是否变化
+     */
+    public void submit(Long appId, String webUrl, String contentHash) {
+        ScreenshotJob job = new ScreenshotJob(appId, webUrl, contentHash);
+        job.setGeneration(generation.incrementAndGet());
+        jobs.put(appId, job);
+        persist(job);
+        scheduleAfter(job, screenshotConfig.getDebounceMillis());
+        log.info("截图任务已提交，appId: {}，{} 毫秒后执行", appId, screenshotConfig.getDebounceMillis());
+    }
+
+    private void workLoop() {
+        while (running) {
+            ScheduledJob scheduled;
+            try {
+                scheduled = schedule.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            ScreenshotJob job = jobs.get(scheduled.appId());
+            if (job == null || job.getGeneration() != scheduled.generation()) {
+                // 已被新任务覆盖
+                continue;
+            }
+            if (!runningApps.add(job.getAppId())) {
+                // 同一应用的上一个任务仍在执行，等待其结束
+                scheduleAfter(job, screenshotConfig.getDebounceMillis());
+                continue;
+            }
+            try {
+                process(job);
+            } finally {
+                runningApps.remove(job.getAppId());
+            }
+        }
+    }
+
+    private void process(ScreenshotJob job) {
+        Long appId = job.getAppId();
+        if (StrUtil.isNotBlank(job.getContentHash())
+                && job.getContentHash().equals(getCoverContentHash(appId))) {
+            log.info("appId: {} 部署内容未变化，跳过截图", appId);
+            finish(job);
+            return;
+        }
+        try {
+            String coverUrl = screenshotService.generateAndUploadScreenshot(job.getWebUrl());
+            coverUpdates.put(appId, new CoverUpdate(coverUrl, job.getContentHash()));
+            jobs.remove(appId, job);
+        } catch (Exception e) {
+            retryOrDrop(job, e);
+        }
+    }
+
+    private void retryOrDrop(ScreenshotJob job, Exception e) {
+        if (jobs.get(job.getAppId()) != job) {
+            // 执行期间已有新任务，失败的旧任务不再重试
+            return;
+        }
+        job.setAttempts(job.getAttempts() + 1);
+        if (job.getAttempts() >= screenshotConfig.getMaxAttempts()) {
+            log.error("appId: {} 截图失败 {} 次，放弃：{}", job.getAppId(), job.getAttempts(), e.getMessage(), e);
+            finish(job);
+            return;
+        }
+        long backoff = Math.min(screenshotConfig.getMaxRetryBackoffMillis(),
+                screenshotConfig.getRetryBackoffMillis() << Math.min(job.getAttempts() - 1, 20));
+        log.warn("appId: {} 第 {} 次截图失败，{} 毫秒后重试：{}", job.getAppId(), job.getAttempts(), backoff, e.getMessage());
+        persist(job);
+        scheduleAfter(job, backoff);
+    }
+
+    /**
+     * 任务结束（跳过或放弃），未被新任务覆盖时清除持久化记录
+     */
+    private void finish(ScreenshotJob job) {
+        if (jobs.remove(job.getAppId(), job)) {
+            removePersisted(job.getAppId());
+        }
+    }
+
+    private void scheduleAfter(ScreenshotJob job, long delayMillis) {
+        schedule.put(new ScheduledJob(job.getAppId(), job.getGeneration(),
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis)));
+    }
+
+    private void coverFlushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(screenshotConfig.getCoverFlushIntervalMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+            flushCovers();
+        }
+    }
+
+    /**
+     * 分批写入已完成的封面，成功后记录封面对应的内容哈希，失败的留待下次写入
+     */
+    private synchronized void flushCovers() {
+        if (coverUpdates.isEmpty()) {
+            return;
+        }
+        Map<Long, CoverUpdate> batch = new HashMap<>();
+        for (Long appId : List.copyOf(coverUpdates.keySet())) {
+            CoverUpdate update = coverUpdates.remove(appId);
+            if (update != null) {
+                batch.put(appId, update);
+            }
+            if (batch.size() >= screenshotConfig.getCoverBatchSize()) {
+                writeCovers(batch);
+                batch.clear();
+            }
+        }
+        writeCovers(batch);
+    }
+
+    private void writeCovers(Map<Long, CoverUpdate> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<App> apps = new ArrayList<>(batch.size());
+        batch.forEach((appId, update) -> {
+            App app = new App();
+            app.setId(appId);
+            app.setCover(update.coverUrl());
+            apps.add(app);
+        });
+        try {
+            appMapper.batchUpdateCover(apps);
+        } catch (Exception e) {
+            log.error("批量更新应用封面失败，共 {} 条，稍后重试：{}", apps.size(), e.getMessage(), e);
+            // 期间已有更新的截图结果时保留新的
+            batch.forEach(coverUpdates::putIfAbsent);
+            return;
+        }
+        log.info("批量更新应用封面 {} 条", apps.size());
+        batch.forEach((appId, update) -> {
+            if (StrUtil.isNotBlank(update.contentHash())) {
+                setCoverContentHash(appId, update.contentHash());
+            }
+            if (!jobs.containsKey(appId)) {
+                removePersisted(appId);
+            }
+        });
+    }
+
+    /**
+     * 启动时恢复上次未完成的任务
+     */
+    private void restorePersistedJobs() {
+        Map<Object, Object> persisted;
+        try {
+            persisted = stringRedisTemplate.opsForHash().entries(RedisConstant.SCREENSHOT_JOB_KEY);
+        } catch (Exception e) {
+            log.warn("读取未完成的截图任务失败：{}", e.getMessage());
+            return;
+        }
+        for (Object value : persisted.values()) {
+            ScreenshotJob job = JSONUtil.toBean(Objects.toString(value), ScreenshotJob.class);
+            if (job.getAppId() == null || StrUtil.isBlank(job.getWebUrl())) {
+                continue;
+            }
+            job.setGeneration(generation.incrementAndGet());
+            jobs.put(job.getAppId(), job);
+            scheduleAfter(job, screenshotConfig.getDebounceMillis());
+        }
+        if (!persisted.isEmpty()) {
+            log.info("已恢复未完成的截图任务 {} 个", persisted.size());
+        }
+    }
+
+    private void persist(ScreenshotJob job) {
+        try {
+            stringRedisTemplate.opsForHash().put(RedisConstant.SCREENSHOT_JOB_KEY,
+                    String.valueOf(job.getAppId()), JSONUtil.toJsonStr(job));
+        } catch (Exception e) {
+            log.warn("保存截图任务失败，appId: {}：{}", job.getAppId(), e.getMessage());
+        }
+    }
+
+    private void removePersisted(Long appId) {
+        try {
+            stringRedisTemplate.opsForHash().delete(RedisConstant.SCREENSHOT_JOB_KEY, String.valueOf(appId));
+        } catch (Exception e) {
+            log.warn("删除截图任务失败，appId: {}：{}", appId, e.getMessage());
+        }
+    }
+
+    private String getCoverContentHash(Long appId) {
+        try {
+            return stringRedisTemplate.opsForValue().get(RedisConstant.SCREENSHOT_CONTENT_HASH_KEY + appId);
+        } catch (Exception e) {
+            log.warn("读取封面内容哈希失败，appId: {}：{}", appId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void setCoverContentHash(Long appId, String contentHash) {
+        try {
+            stringRedisTemplate.opsForValue().set(RedisConstant.SCREENSHOT_CONTENT_HASH_KEY + appId, contentHash);
+        } catch (Exception e) {
+            log.warn("记录封面内容哈希失败，appId: {}：{}", appId, e.getMessage());
+        }
+    }
+
+    /**
+     * 截图任务，generation 只在内存中用于识别被覆盖的调度条目，恢复时重新分配
+     */
+    @Data
+    @NoArgsConstructor
+    public static class ScreenshotJob {
+
+        private Long appId;
+
+        private String webUrl;
+
+        private String contentHash;
+
+        private int attempts;
+
+        private transient long generation;
+
+        ScreenshotJob(Long appId, String webUrl, String contentHash) {
+            this.appId = appId;
+            this.webUrl = webUrl;
+            this.contentHash = contentHash;
+        }
+    }
+
+    private record CoverUpdate(String coverUrl, String contentHash) {
+    }
+
+    private record ScheduledJob(Long appId, long generation, long dueNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((ScheduledJob) other).dueNanos);
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.szh.aicodebackend.mapper;
 
 import com.mybatisflex.core.BaseMapper;
 import com.szh.aicodebackend.model.entity.App;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 应用 映射层。
@@ -10,4 +13,11 @@ import com.szh.aicodebackend.model.entity.App;
  */
 public interface AppMapper extends BaseMapper<App> {
 
+    /**
+     * 批量更新应用封面（单条语句）
+     *
+     * @param apps 应用列表，只使用 id 和 cover
+     * @return 影响行数
+     */
+    int batchUpdateCover(@Param("apps") List<App> apps);
 }
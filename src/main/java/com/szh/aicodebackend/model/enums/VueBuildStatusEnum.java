@@ -0,0 +1,39 @@
+package com.szh.aicodebackend.model.enums;
+
+import cn.hutool.core.util.ObjectUtil;
+import lombok.Getter;
+
+@Getter
+public enum VueBuildStatusEnum {
+
+    QUEUED("排队中", "queued"),
+    INSTALLING("安装依赖中", "installing"),
+    BUILDING("构建中", "building"),
+    SUCCESS("构建成功", "success"),
+    FAILED("构建失败", "failed");
+
+    private final String text;
+    private final String value;
+
+    VueBuildStatusEnum(String text, String value) {
+        this.text = text;
+        this.value = value;
+    }
+
+    /**
+     * 根据value获取枚举
+     * @param value
+     * @return
+     */
+    public static VueBuildStatusEnum getEnumByValue(String value) {
+        if (ObjectUtil.isEmpty(value)){
+            return null;
+        }
+        for (VueBuildStatusEnum item : VueBuildStatusEnum.values()) {
+            if (item.value.equals(value)) {
+                return item;
+            }
+        }
+        return null;
+    }
+}
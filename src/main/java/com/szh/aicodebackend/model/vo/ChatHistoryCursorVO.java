@@ -0,0 +1,37 @@
+package com.szh.aicodebackend.model.vo;
+
+import com.szh.aicodebackend.model.entity.ChatHistory;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 对话历史游标分页结果
+ */
+@Data
+public class ChatHistoryCursorVO implements Serializable {
+
+    /**
+     * 对话记录（按创建时间倒序）
+     */
+    private List<ChatHistory> records;
+
+    /**
+     * 是否还有更早的记录
+     */
+    private boolean hasMore;
+
+    /**
+     * 下一页游标 - 本页最后一条记录的创建时间
+     */
+    private LocalDateTime lastCreateTime;
+
+    /**
+     * 下一页游标 - 本页最后一条记录的 id
+     */
+    private Long lastId;
+
+    private static final long serialVersionUID = 1L;
+}
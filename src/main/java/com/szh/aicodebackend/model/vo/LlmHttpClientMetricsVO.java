@@ -0,0 +1,34 @@
+package com.szh.aicodebackend.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 大模型 HTTP 客户端统计
+ */
+@Data
+public class LlmHttpClientMetricsVO implements Serializable {
+
+    /**
+     * 累计请求数
+     */
+    private long totalRequests;
+
+    /**
+     * 进行中的请求数（含流式响应）
+     */
+    private long activeRequests;
+
+    /**
+     * 失败请求数
+     */
+    private long failedRequests;
+
+    /**
+     * 流式请求平均首字节耗时（毫秒）
+     */
+    private long avgTimeToFirstByteMillis;
+
+    private static final long serialVersionUID = 1L;
+}
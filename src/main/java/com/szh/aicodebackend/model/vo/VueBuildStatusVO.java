@@ -0,0 +1,60 @@
+package com.szh.aicodebackend.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Vue 项目构建状态
+ */
+@Data
+public class VueBuildStatusVO implements Serializable {
+
+    /**
+     * 项目目录名
+     */
+    private String projectName;
+
+    /**
+     * 构建状态，取值见 VueBuildStatusEnum
+     */
+    private String status;
+
+    /**
+     * 估算的构建进度（0-100）
+     */
+    private int progress;
+
+    /**
+     * 排队位置，0 表示已开始构建
+     */
+    private int queuePosition;
+
+    /**
+     * 是否源码未变化、直接复用了已有构建产物
+     */
+    private boolean cacheHit;
+
+    /**
+     * 失败原因
+     */
+    private String message;
+
+    /**
+     * 提交时间
+     */
+    private LocalDateTime queuedTime;
+
+    /**
+     * 开始构建时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishTime;
+
+    private static final long serialVersionUID = 1L;
+}
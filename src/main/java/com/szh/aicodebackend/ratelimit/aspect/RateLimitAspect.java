@@ -1,28 +1,30 @@
 package com.szh.aicodebackend.ratelimit.aspect;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.szh.aicodebackend.exception.BusinessException;
 import com.szh.aicodebackend.exception.ErrorCode;
 import com.szh.aicodebackend.model.entity.User;
 import com.szh.aicodebackend.ratelimit.annotation.RateLimit;
+import com.szh.aicodebackend.ratelimit.config.RateLimitConfig;
+import com.szh.aicodebackend.ratelimit.limiter.LeasedRateLimiter;
 import com.szh.aicodebackend.service.UserService;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.redisson.api.RRateLimiter;
-import org.redisson.api.RateIntervalUnit;
-import org.redisson.api.RateType;
-import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
-import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 
 @Aspect
@@ -31,21 +33,32 @@ import java.time.Duration;
 public class RateLimitAspect {
 
     @Resource
-    private RedissonClient redissonClient;
+    private LeasedRateLimiter leasedRateLimiter;
+
+    @Resource
+    private RateLimitConfig rateLimitConfig;
 
     @Resource
     private UserService userService;
 
+    /**
+     * 会话 id -> 登录用户 id，避免每次限流都重新查询登录用户
+     */
+    private Cache<String, Long> sessionUserIds;
+
+    @PostConstruct
+    public void init() {
+        sessionUserIds = Caffeine.newBuilder()
+                .maximumSize(rateLimitConfig.getMaxLocalKeys())
+                .expireAfterWrite(rateLimitConfig.getLoginUserCacheSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
     @Before("@annotation(rateLimit)")
     public void doBefore(JoinPoint point, RateLimit rateLimit) {
         String key = generateRateLimitKey(point, rateLimit);
-        // 使用Redisson的分布式限流器
-        RRateLimiter rateLimiter = redissonClient.getRateLimiter(key);
-        rateLimiter.expire(Duration.ofHours(1)); // 1 小时后过期
-        // 设置限流器参数：每个时间窗口允许的请求数和时间窗口
-        rateLimiter.trySetRate(RateType.OVERALL, rateLimit.rate(), rateLimit.rateInterval(), RateIntervalUnit.SECONDS);
-        // 尝试获取令牌，如果获取失败则限流
-        if (!rateLimiter.tryAcquire(1)) {
+        // 本地令牌桶 + 分布式限流器预占令牌，获取失败则限流
+        if (!leasedRateLimiter.tryAcquire(key, rateLimit.rate(), rateLimit.rateInterval())) {
             throw new BusinessException(ErrorCode.TOO_MANY_REQUEST, rateLimit.message());
         }
     }
@@ -72,8 +85,7 @@ public class RateLimitAspect {
                     ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
                     if (attributes != null) {
                         HttpServletRequest request = attributes.getRequest();
-                        User loginUser = userService.getLoginUser(request);
-                        keyBuilder.append("user:").append(loginUser.getId());
+                        keyBuilder.append("user:").append(getLoginUserId(request));
                     } else {
                         // 无法获取请求上下文，使用IP限流
                         keyBuilder.append("ip:").append(getClientIP());
@@ -93,6 +105,21 @@ public class RateLimitAspect {
         return keyBuilder.toString();
     }
 
+    /**
+     * 获取登录用户 id，按会话缓存；没有会话时视为未登录
+     */
+    private Long getLoginUserId(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            throw new BusinessException(ErrorCode.NOT_LOGIN_ERROR);
+        }
+        // 未登录时抛出异常，不会被缓存
+        return sessionUserIds.get(session.getId(), id -> {
+            User loginUser = userService.getLoginUser(request);
+            return loginUser.getId();
+        });
+    }
+
     private String getClientIP() {
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
         if (attributes == null) {
@@ -0,0 +1,49 @@
+package com.szh.aicodebackend.ratelimit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 限流配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+@Data
+public class RateLimitConfig {
+
+    /**
+     * 每次从 Redis 预占的令牌数，1 表示每次请求都访问 Redis
+     */
+    private int leaseSize = 5;
+
+    /**
+     * 限流速率不低于 leaseSize 的该倍数时才预占，速率较低时每次只取一个令牌，避免一个实例占用过多配额
+     */
+    private int leaseMinRateMultiple = 4;
+
+    /**
+     * 预占令牌的有效期（毫秒），同时不超过时间窗口的十分之一，过期未用的令牌作废
+     */
+    private long leaseTtlMillis = 1000;
+
+    /**
+     * 本地剩余预占令牌不超过该值时异步补充
+     */
+    private int refillThreshold = 1;
+
+    /**
+     * 本地最多保存的限流 key 数量
+     */
+    private long maxLocalKeys = 100_000;
+
+    /**
+     * 本地限流状态的空闲过期时间（分钟），须小于 Redis 限流器的过期时间
+     */
+    private long localKeyIdleMinutes = 30;
+
+    /**
+     * 会话 -> 登录用户 id 的缓存时间（秒）
+     */
+    private long loginUserCacheSeconds = 60;
+}
@@ -0,0 +1,250 @@
+package com.szh.aicodebackend.ratelimit.limiter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.szh.aicodebackend.ratelimit.config.RateLimitConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RRateLimiter;
+import org.redisson.api.RateIntervalUnit;
+import org.redisson.api.RateType;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 两级限流器
+ * 第一级是进程内的令牌桶（GCRA，单个 CAS 完成判断），超出速率的请求直接在本地拒绝，不访问 Redis；
+ * 第二级是 Redisson 分布式限流器，限流器参数每个 key 只设置一次。速率足够高时本地每次预占一批令牌（租约），
+ * 用完前异步补充；速率较低时每次只取一个令牌，与逐个请求访问 Redis 的语义一致。
+ * 租约有效期远小于时间窗口：令牌在 Redis 中按预占时刻计数，跨窗口边界使用时全局速率最多超出每个实例一个租约
+ */
+@Slf4j
+@Component
+public class LeasedRateLimiter {
+
+    /**
+     * Redis 限流器的过期时间，每次预占令牌时顺带续期
+     */
+    private static final Duration REDIS_KEY_TTL = Duration.ofHours(1);
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private RateLimitConfig rateLimitConfig;
+
+    /**
+     * 限流 key -> 本地状态，各 key 互不竞争
+     */
+    private Cache<String, LimiterState> states;
+
+    @PostConstruct
+    public void init() {
+        states = Caffeine.newBuilder()
+                .maximumSize(rateLimitConfig.getMaxLocalKeys())
+                .expireAfterAccess(rateLimitConfig.getLocalKeyIdleMinutes(), TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param key                 限流 key
+     * @param rate                每个时间窗口允许的请求数
+     * @param rateIntervalSeconds 时间窗口，单位秒
+     * @return 是否放行
+     */
+    public boolean tryAcquire(String key, int rate, int rateIntervalSeconds) {
+        // 只创建本地状态，Redis 调用不放在缓存的计算函数里
+        LimiterState state = states.get(key, k -> createState(k, rate, rateIntervalSeconds));
+        long now = System.nanoTime();
+        // 本实例内已超出速率，无需访问 Redis
+        if (!state.tryConsumeLocal(now)) {
+            return false;
+        }
+        int remaining = state.takeLeased(now);
+        if (remaining >= 0) {
+            if (remaining <= rateLimitConfig.getRefillThreshold()) {
+                refillAsync(state);
+            }
+            return true;
+        }
+        if (!state.initialized) {
+            initRedisLimiter(state.rateLimiter, rate, rateIntervalSeconds);
+            state.initialized = true;
+        }
+        // 租约已用完，同步预占
+        return acquireLease(state);
+    }
+
+    private LimiterState createState(String key, int rate, int rateIntervalSeconds) {
+        RRateLimiter rateLimiter = redissonClient.getRateLimiter(key);
+        int leaseSize = rateLimitConfig.getLeaseSize();
+        if (leaseSize <= 1 || rate < (long) leaseSize * rateLimitConfig.getLeaseMinRateMultiple()) {
+            leaseSize = 1;
+        }
+        long windowNanos = TimeUnit.SECONDS.toNanos(rateIntervalSeconds);
+        long leaseTtlNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(rateLimitConfig.getLeaseTtlMillis()), windowNanos / 10);
+        return new LimiterState(rateLimiter, rate, rateIntervalSeconds, leaseSize, leaseTtlNanos);
+    }
+
+    private static void initRedisLimiter(RRateLimiter rateLimiter, int rate, int rateIntervalSeconds) {
+        rateLimiter.trySetRate(RateType.OVERALL, rate, rateIntervalSeconds, RateIntervalUnit.SECONDS);
+        rateLimiter.expire(REDIS_KEY_TTL);
+    }
+
+    private boolean acquireLease(LimiterState state) {
+        RRateLimiter rateLimiter = state.rateLimiter;
+        try {
+            return acquireLease(state, rateLimiter);
+        } catch (RedisException e) {
+            // Redis 中的限流器已过期，重新初始化后重试一次
+            log.warn("限流器 {} 预占令牌失败，重新初始化：{}", rateLimiter.getName(), e.getMessage());
+            initRedisLimiter(rateLimiter, state.rate, state.rateIntervalSeconds);
+            return acquireLease(state, rateLimiter);
+        }
+    }
+
+    private boolean acquireLease(LimiterState state, RRateLimiter rateLimiter) {
+        if (rateLimiter.tryAcquire(state.leaseSize)) {
+            // 当前请求使用其中一个，其余留在本地
+            if (state.leaseSize > 1) {
+                state.addLeased(state.leaseSize - 1, System.nanoTime());
+            }
+            rateLimiter.expireAsync(REDIS_KEY_TTL);
+            return true;
+        }
+        // 窗口内剩余令牌不足一个租约时逐个获取
+        return state.leaseSize > 1 && rateLimiter.tryAcquire(1);
+    }
+
+    private void refillAsync(LimiterState state) {
+        if (state.leaseSize <= 1 || !state.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        RRateLimiter rateLimiter = state.rateLimiter;
+        rateLimiter.tryAcquireAsync(state.leaseSize).whenComplete((granted, e) -> {
+            try {
+                if (e != null) {
+                    log.warn("限流器 {} 异步补充令牌失败：{}", rateLimiter.getName(), e.getMessage());
+                } else if (Boolean.TRUE.equals(granted)) {
+                    state.addLeased(state.leaseSize, System.nanoTime());
+                    rateLimiter.expireAsync(REDIS_KEY_TTL);
+                }
+            } finally {
+                state.refilling.set(false);
+            }
+        });
+    }
+
+    /**
+     * 单个限流 key 的本地状态
+     */
+    private static final class LimiterState {
+
+        private final RRateLimiter rateLimiter;
+
+        private final int rate;
+
+        private final int rateIntervalSeconds;
+
+        private final int leaseSize;
+
+        /**
+         * 相邻两个令牌的间隔
+         */
+        private final long emissionIntervalNanos;
+
+        private final long windowNanos;
+
+        /**
+         * 预占令牌的有效期
+         */
+        private final long leaseTtlNanos;
+
+        /**
+         * Redis 限流器参数是否已设置
+         */
+        private volatile boolean initialized;
+
+        /**
+         * GCRA 的理论到达时间
+         */
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        /**
+         * 已从 Redis 预占、尚未使用的令牌数
+         */
+        private final AtomicInteger leased = new AtomicInteger();
+
+        /**
+         * 预占令牌的作废时间
+         */
+        private volatile long leaseExpiresAt;
+
+        private final AtomicBoolean refilling = new AtomicBoolean();
+
+        LimiterState(RRateLimiter rateLimiter, int rate, int rateIntervalSeconds, int leaseSize, long leaseTtlNanos) {
+            this.rateLimiter = rateLimiter;
+            this.rate = rate;
+            this.rateIntervalSeconds = rateIntervalSeconds;
+            this.leaseSize = leaseSize;
+            this.leaseTtlNanos = leaseTtlNanos;
+            this.windowNanos = TimeUnit.SECONDS.toNanos(rateIntervalSeconds);
+            this.emissionIntervalNanos = Math.max(1, windowNanos / Math.max(1, rate));
+        }
+
+        /**
+         * 本地令牌桶，容量为一个窗口的请求数
+         */
+        boolean tryConsumeLocal(long now) {
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long next = (tat == Long.MIN_VALUE || tat - now < 0 ? now : tat) + emissionIntervalNanos;
+                if (next - now > windowNanos) {
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(tat, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * 使用一个预占令牌
+         *
+         * @return 使用后剩余的数量，没有可用令牌时返回 -1
+         */
+        int takeLeased(long now) {
+            if (leaseExpiresAt - now < 0) {
+                return -1;
+            }
+            while (true) {
+                int current = leased.get();
+                if (current <= 0) {
+                    return -1;
+                }
+                if (leased.compareAndSet(current, current - 1)) {
+                    return current - 1;
+                }
+            }
+        }
+
+        void addLeased(int permits, long now) {
+            if (leaseExpiresAt - now < 0) {
+                // 旧租约已过期，剩余令牌作废
+                leased.set(0);
+            }
+            leased.addAndGet(permits);
+            leaseExpiresAt = now + leaseTtlNanos;
+        }
+    }
+}
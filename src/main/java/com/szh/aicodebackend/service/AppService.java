@@ -7,6 +7,7 @@ import com.szh.aicodebackend.model.dto.app.AppQueryRequest;
 import com.szh.aicodebackend.model.entity.App;
 import com.szh.aicodebackend.model.entity.User;
 import com.szh.aicodebackend.model.vo.AppVO;
+import com.szh.aicodebackend.model.vo.VueBuildStatusVO;
 import reactor.core.publisher.Flux;
 
 import java.util.List;
@@ -68,4 +69,40 @@ public interface AppService extends IService<App> {
     Page<AppVO> getGoodAppVOListByCache(AppQueryRequest appQueryRequest);
 
     String deployApp(Long appId, User loginUser);
+
+    /**
+     * 获取 Vue 项目最近一次构建状态
+     *
+     * @param appId
+     * @param loginUser
+     * @return
+     */
+    VueBuildStatusVO getVueBuildStatus(Long appId, User loginUser);
+
+    /**
+     * 订阅 Vue 项目构建状态变化
+     *
+     * @param appId
+     * @param loginUser
+     * @return
+     */
+    Flux<VueBuildStatusVO> watchVueBuildStatus(Long appId, User loginUser);
+
+    /**
+     * 获取 Vue 项目最近一次构建日志
+     *
+     * @param appId
+     * @param loginUser
+     * @return
+     */
+    List<String> getVueBuildLog(Long appId, User loginUser);
+
+    /**
+     * 订阅 Vue 项目构建日志
+     *
+     * @param appId
+     * @param loginUser
+     * @return
+     */
+    Flux<String> watchVueBuildLog(Long appId, User loginUser);
 }
@@ -6,6 +6,7 @@ import com.mybatisflex.core.service.IService;
 import com.szh.aicodebackend.model.dto.chatHistory.ChatHistoryQueryRequest;
 import com.szh.aicodebackend.model.entity.ChatHistory;
 import com.szh.aicodebackend.model.entity.User;
+import com.szh.aicodebackend.model.vo.ChatHistoryCursorVO;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 
 import java.time.LocalDateTime;
@@ -34,6 +35,13 @@ public interface ChatHistoryService extends IService<ChatHistory> {
      */
     public boolean deleteById(Long id);
 
+    /**
+     * 删除应用下的全部对话消息（含尚未落库的消息）
+     * @param appId
+     * @return
+     */
+    public boolean deleteByAppId(Long appId);
+
     /**
      * 获取查询包装类
      *
@@ -52,6 +60,17 @@ public interface ChatHistoryService extends IService<ChatHistory> {
      */
     public Page<ChatHistory> listAppChatHistoryByPage(Long appId, int pageSize, LocalDateTime lastCreateTime, User loginUser);
 
+    /**
+     * 游标分页获取应用下的对话历史，按 (createTime, id) 倒序，不查询总数
+     * @param appId 应用id
+     * @param pageSize 每页大小
+     * @param lastCreateTime 游标 - 上一页最后一条记录的创建时间，为空查询最新
+     * @param lastId 游标 - 上一页最后一条记录的 id
+     * @param loginUser 登录用户
+     * @return
+     */
+    public ChatHistoryCursorVO listAppChatHistoryByCursor(Long appId, int pageSize, LocalDateTime lastCreateTime, Long lastId, User loginUser);
+
     /**
      * 加载应用下的对话历史到内存中
      * @param appId 应用id
@@ -1,5 +1,6 @@
 package com.szh.aicodebackend.service;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 /**
@@ -12,7 +13,8 @@ public interface ProjectDownloadService {
      *
      * @param projectPath 项目路径
      * @param downloadFileName 下载文件名
+     * @param request HttpServletRequest
      * @param response HttpServletResponse
      */
-    public void downloadProjectAsZip(String projectPath, String downloadFileName, HttpServletResponse  response);
+    public void downloadProjectAsZip(String projectPath, String downloadFileName, HttpServletRequest request, HttpServletResponse  response);
 }
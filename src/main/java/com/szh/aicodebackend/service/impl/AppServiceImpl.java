@@ -1,19 +1,24 @@
 package com.szh.aicodebackend.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
+import com.szh.aicodebackend.ai.AiCodeGeneratorServiceFactory;
+import com.szh.aicodebackend.ai.ChatMemoryHydrator;
+import com.szh.aicodebackend.ai.model.message.StreamMessage;
 import com.szh.aicodebackend.constant.AppConstant;
 import com.szh.aicodebackend.core.AiCodeGeneratorFacade;
 import com.szh.aicodebackend.core.builder.VueProjectBuilder;
+import com.szh.aicodebackend.core.deploy.ContentAddressedDeployer;
+import com.szh.aicodebackend.core.deploy.DeployManifest;
 import com.szh.aicodebackend.core.handler.StreamHandlerExecutor;
 import com.szh.aicodebackend.exception.BusinessException;
 import com.szh.aicodebackend.exception.ErrorCode;
 import com.szh.aicodebackend.exception.ThrowUtils;
+import com.szh.aicodebackend.manager.ScreenshotJobQueue;
 import com.szh.aicodebackend.mapper.AppMapper;
 import com.szh.aicodebackend.model.dto.app.AppQueryRequest;
 import com.szh.aicodebackend.model.entity.App;
@@ -22,9 +27,9 @@ import com.szh.aicodebackend.model.enums.ChatHistoryMessageTypeEnum;
 import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
 import com.szh.aicodebackend.model.vo.AppVO;
 import com.szh.aicodebackend.model.vo.UserVO;
+import com.szh.aicodebackend.model.vo.VueBuildStatusVO;
 import com.szh.aicodebackend.service.AppService;
 import com.szh.aicodebackend.service.ChatHistoryService;
-import com.szh.aicodebackend.service.ScreenshotService;
 import com.szh.aicodebackend.service.UserService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -56,6 +61,12 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     @Resource
     private ChatHistoryService chatHistoryService;
 
+    @Resource
+    private ChatMemoryHydrator chatMemoryHydrator;
+
+    @Resource
+    private AiCodeGeneratorServiceFactory aiCodeGeneratorServiceFactory;
+
     @Resource
     private StreamHandlerExecutor streamHandlerExecutor;
 
@@ -63,7 +74,10 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     private VueProjectBuilder vueProjectBuilder;
 
     @Resource
-    private ScreenshotService screenshotService;
+    private ContentAddressedDeployer contentAddressedDeployer;
+
+    @Resource
+    private ScreenshotJobQueue screenshotJobQueue;
 
     @Resource
     private RedisTemplate redisTemplate;
@@ -162,6 +176,10 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         boolean result = chatHistoryService.addChatMessage(appId, userMessage, ChatHistoryMessageTypeEnum.USER.getValue(), loginUser.getId());
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR, "保存历史记录失败");
         //AI生成代码
+        if (codeGenTypeEnum == CodeGenTypeEnum.VUE_PROJECT) {
+            Flux<StreamMessage> messageFlux = aiCodeGeneratorFacade.generateVueProjectCodeStream(userMessage, appId);
+            return streamHandlerExecutor.doExecute(messageFlux, chatHistoryService, appId, loginUser);
+        }
         Flux<String> contentFlux = aiCodeGeneratorFacade.generateAndSaveCodeStream(userMessage, codeGenTypeEnum, appId);
         return streamHandlerExecutor.doExecute(contentFlux, chatHistoryService, appId, loginUser,codeGenTypeEnum);
     }
@@ -170,11 +188,14 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     public boolean removeById(Long id) {
         ThrowUtils.throwIf(id == null || id <= 0, ErrorCode.PARAMS_ERROR, "应用Id不合法");
         try {
-            //关联的聊天记录
-            boolean result = chatHistoryService.deleteById(id);
+            //关联的聊天记录（含写缓冲中尚未落库的消息）
+            chatHistoryService.deleteByAppId(id);
         } catch (Exception e) {
             log.error("删除聊天记录失败: " + e.getMessage());
         }
+        // 使该应用的对话记忆失效
+        chatMemoryHydrator.invalidate(id);
+        aiCodeGeneratorServiceFactory.evictChatMemory(id);
         return super.removeById(id);
     }
 
@@ -254,10 +275,10 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
             sourceDir = distDir;
             log.info("Vue 项目构建成功，将部署 dist 目录: {}", distDir.getAbsolutePath());
         }
-        // 8. 复制文件到部署目录
-        String deployDirPath = AppConstant.CODE_DEPLOY_ROOT_DIR + File.separator + deployKey;
+        // 8. 增量部署：只写入内容变化的文件，就绪后原子切换部署目录
+        DeployManifest deployManifest;
         try {
-            FileUtil.copyContent(sourceDir, new File(deployDirPath), true);
+            deployManifest = contentAddressedDeployer.deploy(sourceDir, deployKey);
         } catch (Exception e) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "部署失败：" + e.getMessage());
         }
@@ -270,28 +291,46 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         ThrowUtils.throwIf(!updateResult, ErrorCode.OPERATION_ERROR, "更新应用部署信息失败");
         // 10. 返回可访问的 URL
         String appDeployUrl = String.format("%s/%s/", AppConstant.CODE_DEPLOY_HOST, deployKey);
-        //11.异步生成网站截图并上传到COS对象存储
-        generateAppScreenshotAsync(appId,appDeployUrl);
+        //11.提交截图任务，异步生成网站截图并更新应用封面
+        screenshotJobQueue.submit(appId, appDeployUrl, deployManifest.getContentHash());
         return appDeployUrl;
     }
 
+    @Override
+    public VueBuildStatusVO getVueBuildStatus(Long appId, User loginUser) {
+        VueBuildStatusVO status = vueProjectBuilder.getBuildStatus(getBuildProjectName(appId, loginUser));
+        ThrowUtils.throwIf(status == null, ErrorCode.NOT_FOUND_ERROR, "暂无构建记录");
+        return status;
+    }
+
+    @Override
+    public Flux<VueBuildStatusVO> watchVueBuildStatus(Long appId, User loginUser) {
+        return vueProjectBuilder.watchBuildStatus(getBuildProjectName(appId, loginUser));
+    }
+
+    @Override
+    public List<String> getVueBuildLog(Long appId, User loginUser) {
+        List<String> lines = vueProjectBuilder.getBuildLog(getBuildProjectName(appId, loginUser));
+        ThrowUtils.throwIf(lines == null, ErrorCode.NOT_FOUND_ERROR, "暂无构建记录");
+        return lines;
+    }
+
+    @Override
+    public Flux<String> watchVueBuildLog(Long appId, User loginUser) {
+        return vueProjectBuilder.watchBuildLog(getBuildProjectName(appId, loginUser));
+    }
+
     /**
-     * 异步生成网站截图并上传到COS对象存储
-     *
-     * @param appId
-     * @param appDeployUrl
+     * 校验权限并获取构建项目目录名，仅本人可以查看
      */
-    private void generateAppScreenshotAsync(Long appId, String appDeployUrl) {
-        Thread.startVirtualThread(()->{
-           //调用截图服务并上传截图
-            String screenshotUrl = screenshotService.generateAndUploadScreenshot(appDeployUrl);
-            //更新应用封面
-            App updateApp = new App();
-            updateApp.setId(appId);
-            updateApp.setCover(screenshotUrl);
-            boolean updateResult = this.updateById(updateApp);
-            ThrowUtils.throwIf(!updateResult, ErrorCode.OPERATION_ERROR, "更新应用封面失败");
-        });
+    private String getBuildProjectName(Long appId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        App app = this.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        if (!app.getUserId().equals(loginUser.getId())) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限查看该应用");
+        }
+        return app.getCodeGenType() + "_" + appId;
     }
 
 }
@@ -1,11 +1,14 @@
 package com.szh.aicodebackend.service.impl;
 
-import cn.hutool.core.collection.CollUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.mybatisflex.core.paginate.Page;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.spring.service.impl.ServiceImpl;
+import com.szh.aicodebackend.ai.ChatMemoryHydrator;
 import com.szh.aicodebackend.exception.ErrorCode;
 import com.szh.aicodebackend.exception.ThrowUtils;
+import com.szh.aicodebackend.manager.ChatHistoryWriteBuffer;
 import com.szh.aicodebackend.mapper.ChatHistoryMapper;
 import com.szh.aicodebackend.model.dto.chatHistory.ChatHistoryQueryRequest;
 import com.szh.aicodebackend.model.entity.App;
@@ -13,6 +16,7 @@ import com.szh.aicodebackend.model.entity.ChatHistory;
 import com.szh.aicodebackend.model.entity.User;
 import com.szh.aicodebackend.model.enums.ChatHistoryMessageTypeEnum;
 import com.szh.aicodebackend.model.enums.UserRoleEnum;
+import com.szh.aicodebackend.model.vo.ChatHistoryCursorVO;
 import com.szh.aicodebackend.service.AppService;
 import com.szh.aicodebackend.service.ChatHistoryService;
 import dev.langchain4j.data.message.AiMessage;
@@ -23,9 +27,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 对话历史 服务层实现。
@@ -41,6 +50,20 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     @Lazy
     private AppService appService;
 
+    @Resource
+    private ChatHistoryWriteBuffer chatHistoryWriteBuffer;
+
+    @Resource
+    private ChatMemoryHydrator chatMemoryHydrator;
+
+    /**
+     * 应用 id -> 创建者 id
+     */
+    private final Cache<Long, Long> appOwnerCache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(Duration.ofMinutes(30))
+            .build();
+
     @Override
     public boolean addChatMessage(Long appId, String message, String messageType, Long userId) {
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
@@ -55,14 +78,39 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                 .messageType(messageType)
                 .userId(userId)
                 .build();
-        return this.save(chatHistory);
+        // 异步批量落库
+        return chatHistoryWriteBuffer.add(chatHistory);
     }
 
     @Override
     public boolean deleteById(Long id) {
         ThrowUtils.throwIf(id == null || id <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
+        // 消息可能还在写缓冲中，先丢弃，避免删除后被重新写入
+        ChatHistory pending = chatHistoryWriteBuffer.discardPendingMessage(id);
+        if (pending != null) {
+            chatMemoryHydrator.invalidate(pending.getAppId());
+            return true;
+        }
+        ChatHistory chatHistory = this.getById(id);
+        if (chatHistory == null) {
+            return false;
+        }
         QueryWrapper queryWrapper = QueryWrapper.create().eq(ChatHistory::getId, id);
-        return this.remove(queryWrapper);
+        boolean result = this.remove(queryWrapper);
+        // 历史被删除，已加载到 Redis 的对话记忆不再可信
+        chatMemoryHydrator.invalidate(chatHistory.getAppId());
+        return result;
+    }
+
+    @Override
+    public boolean deleteByAppId(Long appId) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
+        // 先丢弃写缓冲中的消息，避免删除后被重新写入
+        chatHistoryWriteBuffer.discardPending(appId);
+        QueryWrapper queryWrapper = QueryWrapper.create().eq(ChatHistory::getAppId, appId);
+        boolean result = this.remove(queryWrapper);
+        chatMemoryHydrator.invalidate(appId);
+        return result;
     }
 
     @Override
@@ -97,36 +145,77 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
         ThrowUtils.throwIf(pageSize > 50 || pageSize <= 0, ErrorCode.PARAMS_ERROR, "页面大小在1-50之间");
         ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR);
-        //获取app,验证权限，仅本人或管理员可见
-        App app = appService.getById(appId);
-        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR);
-        ThrowUtils.throwIf(!app.getUserId().equals(loginUser.getId()) && !loginUser.getUserRole().equals(UserRoleEnum.ADMIN.getValue()), ErrorCode.NO_AUTH_ERROR);
+        //验证权限，仅本人或管理员可见
+        checkViewPermission(appId, loginUser);
         //构造查询条件
         ChatHistoryQueryRequest chatHistoryQueryRequest = new ChatHistoryQueryRequest();
         chatHistoryQueryRequest.setAppId(appId);
         chatHistoryQueryRequest.setLastCreateTime(lastCreateTime);
         QueryWrapper queryWrapper = this.getQueryWrapper(chatHistoryQueryRequest);
-        return this.page(Page.of(1, pageSize), queryWrapper);
+        Page<ChatHistory> page = this.page(Page.of(1, pageSize), queryWrapper);
+        // 合并尚未落库的消息
+        List<ChatHistory> records = mergePendingMessages(page.getRecords(), appId, lastCreateTime, null, pageSize);
+        page.setTotalRow(page.getTotalRow() + records.size() - page.getRecords().size());
+        page.setRecords(records);
+        return page;
+    }
+
+    @Override
+    public ChatHistoryCursorVO listAppChatHistoryByCursor(Long appId, int pageSize, LocalDateTime lastCreateTime, Long lastId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用ID无效");
+        ThrowUtils.throwIf(pageSize > 50 || pageSize <= 0, ErrorCode.PARAMS_ERROR, "页面大小在1-50之间");
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR);
+        checkViewPermission(appId, loginUser);
+        // 按 (appId, createTime, id) 索引做键集分页，多取一条判断是否还有更早的记录
+        QueryWrapper queryWrapper = QueryWrapper.create()
+                .eq(ChatHistory::getAppId, appId);
+        if (lastCreateTime != null) {
+            if (lastId != null) {
+                queryWrapper.and(wrapper -> wrapper.lt(ChatHistory::getCreateTime, lastCreateTime)
+                        .or(sameTime -> sameTime.eq(ChatHistory::getCreateTime, lastCreateTime)
+                                .lt(ChatHistory::getId, lastId)));
+            } else {
+                queryWrapper.lt(ChatHistory::getCreateTime, lastCreateTime);
+            }
+        }
+        queryWrapper.orderBy(ChatHistory::getCreateTime, false)
+                .orderBy(ChatHistory::getId, false)
+                .limit(pageSize + 1);
+        List<ChatHistory> records = mergePendingMessages(this.list(queryWrapper), appId, lastCreateTime, lastId, pageSize + 1);
+        ChatHistoryCursorVO cursorVO = new ChatHistoryCursorVO();
+        cursorVO.setHasMore(records.size() > pageSize);
+        if (records.size() > pageSize) {
+            records = new ArrayList<>(records.subList(0, pageSize));
+        }
+        cursorVO.setRecords(records);
+        if (!records.isEmpty()) {
+            ChatHistory last = records.get(records.size() - 1);
+            cursorVO.setLastCreateTime(last.getCreateTime());
+            cursorVO.setLastId(last.getId());
+        }
+        return cursorVO;
     }
 
     @Override
     public int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount) {
         try {
-            // 直接构造查询条件，起始点为 1 而不是 0，用于排除最新的用户消息
+            // 直接构造查询条件，多取一条，合并尚未落库的消息后排除最新的用户消息
             QueryWrapper queryWrapper = QueryWrapper.create()
                     .eq(ChatHistory::getAppId, appId)
                     .orderBy(ChatHistory::getCreateTime, false)
-                    .limit(1, maxCount);
-            List<ChatHistory> historyList = this.list(queryWrapper);
-            if (CollUtil.isEmpty(historyList)) {
+                    .orderBy(ChatHistory::getId, false)
+                    .limit(maxCount + 1);
+            List<ChatHistory> historyList = mergePendingMessages(this.list(queryWrapper), appId, null, null, maxCount + 1);
+            // 先清理历史缓存，防止重复加载；历史已被删空时记忆也随之清空
+            chatMemory.clear();
+            if (historyList.size() <= 1) {
                 return 0;
             }
+            historyList = new ArrayList<>(historyList.subList(1, historyList.size()));
             // 反转列表，确保按时间正序（老的在前，新的在后）
             Collections.reverse(historyList);
             // 按时间顺序添加到记忆中
             int loadedCount = 0;
-            // 先清理历史缓存，防止重复加载
-            chatMemory.clear();
             for (ChatHistory history : historyList) {
                 if (ChatHistoryMessageTypeEnum.USER.getValue().equals(history.getMessageType())) {
                     chatMemory.add(UserMessage.from(history.getMessage()));
@@ -145,6 +234,56 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
         }
     }
 
+    /**
+     * 校验查看对话历史的权限，仅本人或管理员可见
+     */
+    private void checkViewPermission(Long appId, User loginUser) {
+        if (UserRoleEnum.ADMIN.getValue().equals(loginUser.getUserRole())) {
+            return;
+        }
+        // 应用创建者不会变更，缓存以避免每次翻页都查询应用
+        Long ownerId = appOwnerCache.get(appId, id -> {
+            App app = appService.getById(id);
+            return app == null ? null : app.getUserId();
+        });
+        ThrowUtils.throwIf(ownerId == null, ErrorCode.NOT_FOUND_ERROR);
+        ThrowUtils.throwIf(!ownerId.equals(loginUser.getId()), ErrorCode.NO_AUTH_ERROR);
+    }
 
+    /**
+     * 将写缓冲中尚未落库的消息合并到查询结果
+     *
+     * @param records        数据库查询结果（按创建时间倒序）
+     * @param appId          应用id
+     * @param lastCreateTime 游标，只合并早于该时间的消息，为 null 不限制
+     * @param lastId         游标，创建时间相同时只合并 id 更小的消息，为 null 不合并创建时间相同的消息
+     * @param limit          最大条数
+     * @return 按 (创建时间, id) 倒序的消息列表
+     */
+    private List<ChatHistory> mergePendingMessages(List<ChatHistory> records, Long appId, LocalDateTime lastCreateTime, Long lastId, int limit) {
+        List<ChatHistory> pendingList = chatHistoryWriteBuffer.getPending(appId);
+        if (pendingList.isEmpty()) {
+            return records;
+        }
+        // 刷盘过程中消息可能同时出现在数据库和写缓冲中，按 id 去重
+        Set<Long> existIds = records.stream().map(ChatHistory::getId).collect(Collectors.toSet());
+        List<ChatHistory> merged = new ArrayList<>(records);
+        for (ChatHistory pending : pendingList) {
+            if (!existIds.contains(pending.getId()) && isBeforeCursor(pending, lastCreateTime, lastId)) {
+                merged.add(pending);
+            }
+        }
+        merged.sort(Comparator.comparing(ChatHistory::getCreateTime)
+                .thenComparing(ChatHistory::getId)
+                .reversed());
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
 
+    private boolean isBeforeCursor(ChatHistory chatHistory, LocalDateTime lastCreateTime, Long lastId) {
+        if (lastCreateTime == null) {
+            return true;
+        }
+        int compare = chatHistory.getCreateTime().compareTo(lastCreateTime);
+        return compare < 0 || (compare == 0 && lastId != null && chatHistory.getId() < lastId);
+    }
 }
@@ -1,85 +1,94 @@
 package com.szh.aicodebackend.utils;
 
-import cn.hutool.core.img.ImgUtil;
-import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import com.szh.aicodebackend.exception.BusinessException;
 import com.szh.aicodebackend.exception.ErrorCode;
 import io.github.bonigarcia.wdm.WebDriverManager;
-import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.*;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
-import java.io.File;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.time.Duration;
-import java.util.UUID;
 
+/**
+ * 网页截图工具
+ * 浏览器实例由调用方（截图浏览器池）管理，同一实例同一时间只能用于一个截图任务
+ */
 @Slf4j
 public class WebScreenshotUtils {
 
-    private static final WebDriver webDriver;
+    /**
+     * 页面渲染完成检测脚本：监听 DOM 变化，持续 quietPeriod 毫秒无变化且图片加载完成即返回，最长等待 maxWait 毫秒
+     */
+    private static final String RENDER_QUIET_SCRIPT = """
+            const quietPeriod = arguments[0], maxWait = arguments[1], done = arguments[arguments.length - 1];
+            const start = Date.now();
+            let lastMutation = Date.now();
+            const observer = new MutationObserver(() => { lastMutation = Date.now(); });
+            observer.observe(document, { subtree: true, childList: true, attributes: true, characterData: true });
+            (function check() {
+                const now = Date.now();
+                const imagesLoaded = Array.from(document.images).every(img => img.complete);
+                if ((now - lastMutation >= quietPeriod && imagesLoaded) || now - start >= maxWait) {
+                    observer.disconnect();
+                    done(true);
+                } else {
+                    setTimeout(check, 50);
+                }
+            })();
+            """;
 
-    // 全局静态初始化，避免重复初始化驱动程序：
     static {
-        final int DEFAULT_WIDTH = 1600;
-        final int DEFAULT_HEIGHT = 900;
-        webDriver = initChromeDriver(DEFAULT_WIDTH, DEFAULT_HEIGHT);
-
         System.setProperty("wdm.timeout","500");
         System.setProperty("wdm.retryCount","3");
         //设置国内镜像
         System.setProperty("wdm.chromeDownloadUrl","https://npmmirror.com/mirrors/chromedriver");
     }
 
-    /**
-     * 退出时销毁
-     */
-    @PreDestroy
-    public void destroy() {
-        webDriver.quit();
-    }
-
     /**
      * 生成网页截图
+     * 截图、解码、缩放、JPEG 编码全部在内存中完成，不落盘
      *
-     * @param webUrl 要截图的网址
-     * @return 压缩后的截图文件路径，失败返回 null
+     * @param webDriver           浏览器实例
+     * @param webUrl              要截图的网址
+     * @param quietPeriodMillis   无 DOM 变化多久视为渲染完成（毫秒）
+     * @param maxRenderWaitMillis 最长等待渲染时间（毫秒）
+     * @param outputWidth         输出宽度，0 表示保持原始宽度
+     * @return 压缩后的 JPEG 图片数据，失败返回 null
      */
-    public static String saveWebPageScreenshot(String webUrl) {
+    public static byte[] captureWebPageScreenshot(WebDriver webDriver, String webUrl,
+                                                  long quietPeriodMillis, long maxRenderWaitMillis, int outputWidth) {
         // 非空校验
         if (StrUtil.isBlank(webUrl)) {
             log.error("网页截图失败，url为空");
             return null;
         }
-        // 创建临时目录
         try {
-            String rootPath = System.getProperty("user.dir") + "/tmp/screenshots/" + UUID.randomUUID().toString().substring(0, 8);
-            FileUtil.mkdir(rootPath);
-            // 图片后缀
-            final String IMAGE_SUFFIX = ".png";
-            // 原始图片保存路径
-            String imageSavePath = rootPath + File.separator + RandomUtil.randomNumbers(5) + IMAGE_SUFFIX;
             // 访问网页
             webDriver.get(webUrl);
-            // 等待网页加载
-            waitForPageLoad(webDriver);
+            // 等待网页加载并渲染稳定
+            waitForPageLoad(webDriver, quietPeriodMillis, maxRenderWaitMillis);
             // 截图
             byte[] screenshotBytes = ((TakesScreenshot) webDriver).getScreenshotAs(OutputType.BYTES);
-            // 保存原始图片
-            saveImage(screenshotBytes, imageSavePath);
-            log.info("原始截图保存成功：{}", imageSavePath);
             // 压缩图片
-            final String COMPRESS_SUFFIX = "_compressed.jpg";
-            String compressedImagePath = rootPath + File.separator + RandomUtil.randomNumbers(5) + COMPRESS_SUFFIX;
-            compressImage(imageSavePath, compressedImagePath);
-            log.info("压缩图片保存成功：{}", compressedImagePath);
-            // 删除原始图片
-            FileUtil.del(imageSavePath);
-            return compressedImagePath;
+            byte[] compressedBytes = compressImage(screenshotBytes, outputWidth);
+            log.info("截图压缩完成：{}，{} -> {} 字节", webUrl, screenshotBytes.length, compressedBytes.length);
+            return compressedBytes;
+        } catch (WebDriverException e) {
+            // 浏览器异常交给调用方处理（销毁该实例）
+            throw e;
         } catch (Exception e) {
             log.error("网页截图失败：{}", webUrl, e);
             return null;
@@ -87,9 +96,9 @@ public class WebScreenshotUtils {
     }
 
     /**
-     * 初始化 Chrome 浏览器驱动
+     * 创建 Chrome 浏览器驱动
      */
-    private static WebDriver initChromeDriver(int width, int height) {
+    public static WebDriver createChromeDriver(int width, int height) {
         try {
             // 自动管理 ChromeDriver
             //System.setProperty("wdm.chromeDriverMirrorUrl", "https://registry.npmmirror.com/binary.html?path=chromedriver");
@@ -125,37 +134,46 @@ public class WebScreenshotUtils {
     }
 
     /**
-     * 保存图片到文件
-     *
-     * @param imageBytes
-     * @param imagePath
-     */
-    private static void saveImage(byte[] imageBytes, String imagePath) {
-        try {
-            FileUtil.writeBytes(imageBytes, imagePath);
-        } catch (Exception e) {
-            log.error("保存图片失败：{}", imagePath, e);
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存图片失败");
-        }
-    }
-
-    /**
-     * 压缩图片
+     * 压缩图片：PNG 解码后按需缩放，编码为 JPEG
      *
-     * @param originImagePath
-     * @param compressedImagePath
+     * @param pngBytes   原始截图
+     * @param outputWidth 输出宽度，0 表示保持原始宽度
+     * @return JPEG 图片数据
      */
-    private static void compressImage(String originImagePath, String compressedImagePath) {
+    private static byte[] compressImage(byte[] pngBytes, int outputWidth) {
         // 压缩图片质量（0.1 = 10% 质量）
         final float COMPRESSION_QUALITY = 0.3f;
         try {
-            ImgUtil.compress(
-                    FileUtil.file(originImagePath),
-                    FileUtil.file(compressedImagePath),
-                    COMPRESSION_QUALITY
-            );
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(pngBytes));
+            int width = source.getWidth();
+            int height = source.getHeight();
+            if (outputWidth > 0 && outputWidth < width) {
+                height = (int) Math.round((double) height * outputWidth / width);
+                width = outputWidth;
+            }
+            // JPEG 不支持透明通道，绘制到 RGB 画布（同时完成缩放）
+            BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = target.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(source, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(COMPRESSION_QUALITY);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(pngBytes.length / 4);
+            try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+                writer.setOutput(imageOut);
+                writer.write(null, new IIOImage(target, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return out.toByteArray();
         } catch (Exception e) {
-            log.error("压缩图片失败：{} -> {}", originImagePath, compressedImagePath, e);
+            log.error("压缩图片失败", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "压缩图片失败");
         }
     }
@@ -164,8 +182,10 @@ public class WebScreenshotUtils {
      * 等待页面加载完成
      *
      * @param webDriver
+     * @param quietPeriodMillis
+     * @param maxRenderWaitMillis
      */
-    private static void waitForPageLoad(WebDriver webDriver) {
+    private static void waitForPageLoad(WebDriver webDriver, long quietPeriodMillis, long maxRenderWaitMillis) {
         try {
             // 创建等待页面加载对象
             WebDriverWait wait = new WebDriverWait(webDriver, Duration.ofSeconds(10));
@@ -174,8 +194,9 @@ public class WebScreenshotUtils {
                     .executeScript("return document.readyState").
                     equals("complete")
             );
-            // 额外等待一段时间，确保动态内容加载完成
-            Thread.sleep(2000);
+            // 等待动态内容渲染稳定，代替固定等待
+            webDriver.manage().timeouts().scriptTimeout(Duration.ofMillis(maxRenderWaitMillis + 2000));
+            ((JavascriptExecutor) webDriver).executeAsyncScript(RENDER_QUIET_SCRIPT, quietPeriodMillis, maxRenderWaitMillis);
             log.info("页面加载完成");
         } catch (Exception e) {
             log.error("等待页面加载时出现异常，继续执行截图", e);
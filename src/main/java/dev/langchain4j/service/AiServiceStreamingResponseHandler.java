@@ -9,6 +9,7 @@ import dev.langchain4j.data.message.ToolExecutionResultMessage;
 import dev.langchain4j.guardrail.ChatExecutor;
 import dev.langchain4j.guardrail.GuardrailRequestParams;
 import dev.langchain4j.guardrail.OutputGuardrailRequest;
+import dev.langchain4j.internal.Json;
 import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
@@ -19,9 +20,15 @@ import dev.langchain4j.service.tool.ToolExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -117,10 +124,12 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         addToMemory(aiMessage);
 
         if (aiMessage.hasToolExecutionRequests()) {
-            for (ToolExecutionRequest toolExecutionRequest : aiMessage.toolExecutionRequests()) {
-                String toolName = toolExecutionRequest.name();
-                ToolExecutor toolExecutor = toolExecutors.get(toolName);
-                String toolExecutionResult = toolExecutor.execute(toolExecutionRequest, memoryId);
+            List<ToolExecutionRequest> toolExecutionRequests = aiMessage.toolExecutionRequests();
+            String[] toolExecutionResults = executeTools(toolExecutionRequests);
+            // Results are added to memory and reported in request order, regardless of completion order
+            for (int i = 0; i < toolExecutionRequests.size(); i++) {
+                ToolExecutionRequest toolExecutionRequest = toolExecutionRequests.get(i);
+                String toolExecutionResult = toolExecutionResults[i];
                 ToolExecutionResultMessage toolExecutionResultMessage =
                         ToolExecutionResultMessage.from(toolExecutionRequest, toolExecutionResult);
                 addToMemory(toolExecutionResultMessage);
@@ -199,6 +208,142 @@ class AiServiceStreamingResponseHandler implements StreamingChatResponseHandler
         }
     }
 
+    /**
+     * Executes the tool calls of one assistant turn. Calls touching the same path (or a path and one of its
+     * ancestors) form a group that runs sequentially in request order; independent groups run concurrently
+     * on virtual threads. Calls whose arguments cannot be attributed to a path conflict with everything.
+     */
+    private String[] executeTools(List<ToolExecutionRequest> toolExecutionRequests) {
+        int size = toolExecutionRequests.size();
+        String[] results = new String[size];
+        List<List<Integer>> groups = groupConflictingRequests(toolExecutionRequests);
+        if (groups.size() == 1) {
+            for (int i = 0; i < size; i++) {
+                results[i] = executeTool(toolExecutionRequests.get(i));
+            }
+            return results;
+        }
+        List<Future<?>> futures = new ArrayList<>(groups.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<Integer> group : groups) {
+                futures.add(executor.submit(() -> {
+                    for (int index : group) {
+                        results[index] = executeTool(toolExecutionRequests.get(index));
+                    }
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private String executeTool(ToolExecutionRequest toolExecutionRequest) {
+        ToolExecutor toolExecutor = toolExecutors.get(toolExecutionRequest.name());
+        return toolExecutor.execute(toolExecutionRequest, memoryId);
+    }
+
+    /**
+     * Splits the requests into groups of mutually conflicting requests (union-find), each group in request order.
+     */
+    private static List<List<Integer>> groupConflictingRequests(List<ToolExecutionRequest> toolExecutionRequests) {
+        int size = toolExecutionRequests.size();
+        ToolResource[] resources = new ToolResource[size];
+        int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            resources[i] = ToolResource.of(toolExecutionRequests.get(i));
+            parent[i] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                if (resources[i].conflictsWith(resources[j])) {
+                    parent[find(parent, j)] = find(parent, i);
+                }
+            }
+        }
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            groups.computeIfAbsent(find(parent, i), root -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * The file system resource a tool call operates on.
+     *
+     * @param path   normalized relative path, empty for the project root
+     * @param global true if the call may touch anything
+     * @param none   true if the call has no arguments and touches nothing
+     */
+    private record ToolResource(Path path, boolean global, boolean none) {
+
+        private static final List<String> PATH_ARGUMENTS = List.of("relativeFilePath", "relativeDirPath");
+
+        private static final ToolResource GLOBAL = new ToolResource(null, true, false);
+
+        private static final ToolResource NONE = new ToolResource(null, false, true);
+
+        static ToolResource of(ToolExecutionRequest request) {
+            String arguments = request.arguments();
+            if (arguments == null || arguments.isBlank()) {
+                return NONE;
+            }
+            try {
+                Map<?, ?> argumentMap = Json.fromJson(arguments, Map.class);
+                if (argumentMap == null || argumentMap.isEmpty()) {
+                    return NONE;
+                }
+                for (String name : PATH_ARGUMENTS) {
+                    if (argumentMap.containsKey(name)) {
+                        Object value = argumentMap.get(name);
+                        String rawPath = value == null ? "" : value.toString().replace('\\', '/');
+                        Path path = Path.of(rawPath).normalize();
+                        if (path.isAbsolute() || path.startsWith("..")) {
+                            return GLOBAL;
+                        }
+                        return new ToolResource(path, false, false);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // unparsable arguments or invalid path
+            }
+            return GLOBAL;
+        }
+
+        boolean conflictsWith(ToolResource other) {
+            if (none || other.none) {
+                return false;
+            }
+            if (global || other.global) {
+                return true;
+            }
+            return isRoot(path) || isRoot(other.path) || path.startsWith(other.path) || other.path.startsWith(path);
+        }
+
+        private static boolean isRoot(Path path) {
+            return path.toString().isEmpty();
+        }
+    }
+
     private ChatMemory getMemory() {
         return getMemory(memoryId);
     }
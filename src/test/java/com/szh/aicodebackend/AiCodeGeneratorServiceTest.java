@@ -16,13 +16,13 @@ class AiCodeGeneratorServiceTest {
 
     @Test
     void generateHtmlCode() {
-        HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode("做个程序员的工作记录小工具");
+        HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(0L, "做个程序员的工作记录小工具");
         Assertions.assertNotNull(result);
     }
 
     @Test
     void generateMultiFileCode() {
-        MultiFileCodeResult multiFileCodeResult = aiCodeGeneratorService.generateMultiFileCode("做个程序员的留言板");
+        MultiFileCodeResult multiFileCodeResult = aiCodeGeneratorService.generateMultiFileCode(0L, "做个程序员的留言板");
         Assertions.assertNotNull(multiFileCodeResult);
     }
 }
@@ -0,0 +1,78 @@
+package com.szh.aicodebackend;
+
+import cn.hutool.core.util.IdUtil;
+import com.szh.aicodebackend.ai.AiCodeGeneratorServiceFactory;
+import com.szh.aicodebackend.manager.ChatHistoryWriteBuffer;
+import com.szh.aicodebackend.model.entity.ChatHistory;
+import com.szh.aicodebackend.model.enums.ChatHistoryMessageTypeEnum;
+import com.szh.aicodebackend.model.enums.CodeGenTypeEnum;
+import com.szh.aicodebackend.service.ChatHistoryService;
+import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import jakarta.annotation.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ChatMemoryInvalidationTest {
+
+    @Resource
+    private AiCodeGeneratorServiceFactory aiCodeGeneratorServiceFactory;
+
+    @Resource
+    private ChatHistoryService chatHistoryService;
+
+    @Resource
+    private ChatHistoryWriteBuffer chatHistoryWriteBuffer;
+
+    @Resource
+    private RedisChatMemoryStore redisChatMemoryStore;
+
+    private final long appId = IdUtil.getSnowflakeNextId();
+
+    @AfterEach
+    void cleanUp() {
+        chatHistoryService.deleteByAppId(appId);
+        aiCodeGeneratorServiceFactory.evictChatMemory(appId);
+        redisChatMemoryStore.deleteMessages(appId);
+    }
+
+    @Test
+    void deletedTurnIsNotSentToNextGeneration() {
+        addMessage("第一轮需求", ChatHistoryMessageTypeEnum.USER);
+        ChatHistory deletedReply = addMessage("第一轮回复", ChatHistoryMessageTypeEnum.AI);
+        addMessage("第二轮需求", ChatHistoryMessageTypeEnum.USER);
+        // 首次生成，记忆从数据库加载并留在本地缓存中
+        aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, CodeGenTypeEnum.HTML);
+        assertTrue(containsAiMessage(redisChatMemoryStore.getMessages(appId), "第一轮回复"));
+
+        assertTrue(chatHistoryService.deleteById(deletedReply.getId()));
+        // 下一次生成复用本地缓存的记忆对象，也不能再带上被删除的消息
+        aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, CodeGenTypeEnum.HTML);
+        List<ChatMessage> messages = redisChatMemoryStore.getMessages(appId);
+        assertFalse(containsAiMessage(messages, "第一轮回复"));
+        assertEquals(1, messages.size());
+    }
+
+    private ChatHistory addMessage(String message, ChatHistoryMessageTypeEnum messageType) {
+        ChatHistory chatHistory = ChatHistory.builder()
+                .appId(appId)
+                .message(message)
+                .messageType(messageType.getValue())
+                .userId(1L)
+                .build();
+        assertTrue(chatHistoryWriteBuffer.add(chatHistory));
+        return chatHistory;
+    }
+
+    private static boolean containsAiMessage(List<ChatMessage> messages, String text) {
+        return messages.stream()
+                .anyMatch(message -> message instanceof AiMessage aiMessage && text.equals(aiMessage.text()));
+    }
+}
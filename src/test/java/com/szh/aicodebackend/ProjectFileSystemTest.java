@@ -0,0 +1,74 @@
+package com.szh.aicodebackend;
+
+import com.szh.aicodebackend.core.vfs.ProjectFileSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectFileSystemTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void changesStayInMemoryUntilFlush() throws Exception {
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src/App.vue"), "<template/>");
+        ProjectFileSystem fileSystem = new ProjectFileSystem(root);
+        fileSystem.write("src/components/Hello.vue", "hello");
+        assertTrue(fileSystem.delete("src/App.vue"));
+        // 写回前磁盘不变
+        assertTrue(Files.exists(root.resolve("src/App.vue")));
+        assertFalse(Files.exists(root.resolve("src/components/Hello.vue")));
+        assertFalse(fileSystem.isFile("src/App.vue"));
+        assertEquals("hello", fileSystem.read("src/components/Hello.vue"));
+
+        assertEquals(2, fileSystem.flush());
+        assertFalse(Files.exists(root.resolve("src/App.vue")));
+        assertEquals("hello", Files.readString(root.resolve("src/components/Hello.vue")));
+        assertEquals(0, fileSystem.flush());
+    }
+
+    @Test
+    void pathsOutsideProjectAreRejected() {
+        ProjectFileSystem fileSystem = new ProjectFileSystem(root);
+        assertEquals("src/main.js", fileSystem.toKey("./src/../src/main.js"));
+        assertEquals("src/main.js", fileSystem.toKey(root.resolve("src/main.js").toString()));
+        assertNull(fileSystem.toKey("../other/main.js"));
+        assertNull(fileSystem.toKey("/etc/passwd"));
+    }
+
+    @Test
+    void treeIsRenderedByDepthAndTracksChanges() throws Exception {
+        Files.createDirectories(root.resolve("node_modules/vue"));
+        Files.writeString(root.resolve("node_modules/vue/index.js"), "");
+        Files.writeString(root.resolve("package.json"), "{}");
+        ProjectFileSystem fileSystem = new ProjectFileSystem(root);
+        fileSystem.write("src/main.js", "");
+        fileSystem.write("src/components/Hello.vue", "");
+        fileSystem.write("npm-debug.log", "");
+        assertEquals("""
+                package.json
+                  main.js
+                    Hello.vue
+                """, fileSystem.renderTree(""));
+        assertEquals("""
+                main.js
+                  Hello.vue
+                """, fileSystem.renderTree("src"));
+
+        fileSystem.delete("src/main.js");
+        fileSystem.write("index.html", "");
+        assertEquals("""
+                index.html
+                package.json
+                    Hello.vue
+                """, fileSystem.renderTree(""));
+        assertTrue(fileSystem.isDirectory("src/components"));
+        assertFalse(fileSystem.isDirectory("src/views"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.szh.aicodebackend;
+
+import cn.hutool.json.JSONUtil;
+import com.szh.aicodebackend.core.sse.SseFrameBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SseFrameBufferTest {
+
+    @Test
+    void coalescedChunksFormOneEvent() {
+        SseFrameBuffer buffer = SseFrameBuffer.acquire();
+        buffer.append("<h1>\"你好\"</h1>\n");
+        buffer.append("\t\\😀 ");
+        String frame = new String(buffer.drainFrame(true), StandardCharsets.UTF_8);
+        buffer.release();
+        assertTrue(frame.startsWith("data: "));
+        assertTrue(frame.endsWith("\n\n"));
+        // 事件数据只占一行，JSON 解析后与原始内容一致
+        String data = frame.substring("data: ".length(), frame.length() - 2);
+        assertFalse(data.contains("\n"));
+        assertEquals("<h1>\"你好\"</h1>\n\t\\😀 ", JSONUtil.parseObj(data).getStr("d"));
+    }
+
+    @Test
+    void surrogatePairSplitAcrossChunks() {
+        String emoji = "😀";
+        SseFrameBuffer buffer = SseFrameBuffer.acquire();
+        buffer.append("a" + emoji.charAt(0));
+        String first = new String(buffer.drainFrame(false), StandardCharsets.UTF_8);
+        buffer.append(emoji.charAt(1) + "b");
+        String second = new String(buffer.drainFrame(true), StandardCharsets.UTF_8);
+        buffer.release();
+        assertEquals("data: {\"d\":\"a\"}\n\n", first);
+        assertEquals("data: {\"d\":\"" + emoji + "b\"}\n\n", second);
+        assertTrue(buffer.isEmpty());
+    }
+}
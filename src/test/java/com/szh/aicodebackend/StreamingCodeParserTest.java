@@ -0,0 +1,99 @@
+package com.szh.aicodebackend;
+
+import com.szh.aicodebackend.ai.model.HtmlCodeResult;
+import com.szh.aicodebackend.ai.model.MultiFileCodeResult;
+import com.szh.aicodebackend.core.parser.CodeBlockListener;
+import com.szh.aicodebackend.core.parser.HtmlCodeParser;
+import com.szh.aicodebackend.core.parser.MultiFileCodeParser;
+import com.szh.aicodebackend.core.parser.StreamingCodeParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCodeParserTest {
+
+    private static final String MULTI_FILE_CONTENT = """
+            创建一个完整的网页：
+            ```html
+            <!DOCTYPE html>
+            <html>
+            <body>
+                <h1>欢迎使用</h1>
+                <code>`inline`</code>
+            </body>
+            </html>
+            ```
+
+            ```css
+            h1 { color: blue; }
+            ```
+
+            ```javascript
+            console.log('页面加载完成');
+            ```
+            """;
+
+    @Test
+    void parseSplitIntoSingleCharChunks() {
+        Map<String, StringBuilder> blocks = new HashMap<>();
+        List<String> ended = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser(Set.of("html", "css", "js"), new CodeBlockListener() {
+            @Override
+            public void onBlockStart(String language) {
+                blocks.put(language, new StringBuilder());
+            }
+
+            @Override
+            public void onBlockContent(String language, CharSequence content) {
+                blocks.get(language).append(content);
+            }
+
+            @Override
+            public void onBlockEnd(String language) {
+                ended.add(language);
+            }
+
+            @Override
+            public void onBlockDiscard(String language) {
+                blocks.remove(language);
+            }
+        });
+        // 模拟逐字符到达的 token 流，围栏被拆分到多个片段
+        for (int i = 0; i < MULTI_FILE_CONTENT.length(); i++) {
+            parser.append(MULTI_FILE_CONTENT.substring(i, i + 1));
+        }
+        parser.finish();
+        assertEquals(List.of("html", "css", "js"), ended);
+        assertTrue(blocks.get("html").toString().startsWith("<!DOCTYPE html>"));
+        assertTrue(blocks.get("html").toString().endsWith("</html>"));
+        assertTrue(blocks.get("html").toString().contains("<code>`inline`</code>"));
+        assertEquals("h1 { color: blue; }", blocks.get("css").toString());
+        assertEquals("console.log('页面加载完成');", blocks.get("js").toString());
+    }
+
+    @Test
+    void parseMultiFileCode() {
+        MultiFileCodeResult result = new MultiFileCodeParser().parseCode(MULTI_FILE_CONTENT);
+        assertNotNull(result.getHtmlCode());
+        assertEquals("h1 { color: blue; }", result.getCssCode());
+        assertEquals("console.log('页面加载完成');", result.getJsCode());
+    }
+
+    @Test
+    void parseHtmlCodeWithoutFence() {
+        HtmlCodeResult result = new HtmlCodeParser().parseCode("  <h1>Hello World!</h1>\n");
+        assertEquals("<h1>Hello World!</h1>", result.getHtmlCode());
+    }
+
+    @Test
+    void unclosedBlockIsDiscarded() {
+        HtmlCodeResult result = new HtmlCodeParser().parseCode("```html\n<h1>被截断");
+        assertEquals("```html\n<h1>被截断", result.getHtmlCode());
+    }
+}
@@ -4,6 +4,7 @@ import com.szh.aicodebackend.utils.WebScreenshotUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
 import org.springframework.boot.test.context.SpringBootTest;
 
 @Slf4j
@@ -11,9 +12,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 public class WebScreenshotUtilsTest {
 
     @Test
-    void saveWebPageScreenshot() {
+    void captureWebPageScreenshot() {
         String testUrl = "https://www.codefather.cn";
-        String webPageScreenshot = WebScreenshotUtils.saveWebPageScreenshot(testUrl);
-        Assertions.assertNotNull(webPageScreenshot);
+        WebDriver webDriver = WebScreenshotUtils.createChromeDriver(1600, 900);
+        try {
+            byte[] webPageScreenshot = WebScreenshotUtils.captureWebPageScreenshot(webDriver, testUrl, 500, 8000, 0);
+            Assertions.assertNotNull(webPageScreenshot);
+            Assertions.assertTrue(webPageScreenshot.length > 0);
+        } finally {
+            webDriver.quit();
+        }
     }
 }